@@ -0,0 +1,66 @@
+import java.util.Random;
+
+/**
+ * Times a tick of enemy movement for huge swarms, all of them within chase range of the player,
+ * and reports the cost in nanoseconds per enemy per tick.
+ * Usage: EnemySwarmBenchmark [enemies] [ticks]
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class EnemySwarmBenchmark {
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+        int blockWidth = 40;
+        int mapWidth = 75 * blockWidth;
+        int mapHeight = 500 * blockWidth;
+        int centerX = mapWidth / 2;
+        int centerY = mapHeight / 2;
+
+        // Scatter the swarm around the player, inside the chase range
+        Enemies enemies = new Enemies(blockWidth, count);
+        Random random = new Random(2023);
+        for (int k = 0; k < count; k++) {
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double dist = random.nextDouble() * (Enemies.CHASE_DIST - 10);
+            enemies.add(centerX + (int) (Math.cos(angle) * dist), centerY + (int) (Math.sin(angle) * dist));
+        }
+
+        EnemyGrid grid = new EnemyGrid(enemies, mapWidth, mapHeight, 160);
+        IntList chasers = new IntList();
+
+        System.out.println(count + " enemies, " + ticks + " ticks, common pool parallelism "
+                + java.util.concurrent.ForkJoinPool.getCommonPoolParallelism());
+
+        for (int round = 0; round < 3; round++) {
+            long chaseNanos = 0;
+            long totalNanos = 0;
+
+            for (int t = 0; t < ticks; t++) {
+                // The player circles around, so the swarm keeps moving instead of piling up on one spot.
+                int playerX = centerX + (int) (Math.cos(t * 0.05) * 100);
+                int playerY = centerY + (int) (Math.sin(t * 0.05) * 100);
+
+                long start = System.nanoTime();
+
+                chasers.clear();
+                grid.query(playerX - Enemies.CHASE_DIST, playerY - Enemies.CHASE_DIST,
+                        playerX + Enemies.CHASE_DIST + 1, playerY + Enemies.CHASE_DIST + 1, chasers);
+
+                long chaseStart = System.nanoTime();
+                enemies.chase(chasers, playerX, playerY);
+                chaseNanos += System.nanoTime() - chaseStart;
+
+                for (int k = 0; k < chasers.size(); k++)
+                    grid.update(chasers.get(k));
+
+                totalNanos += System.nanoTime() - start;
+            }
+
+            System.out.printf("round %d: chase %.2f ns/enemy/tick, with grid query & update %.2f ns/enemy/tick (%.2f ms/tick)%n",
+                    round, (double) chaseNanos / ticks / count, (double) totalNanos / ticks / count, totalNanos / 1e6 / ticks);
+        }
+    }
+}
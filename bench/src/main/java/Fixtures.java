@@ -0,0 +1,466 @@
+import bench.Fixture;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * The game's hot paths, set up for the JMH benchmarks in the bench package.
+ * Everything random is seeded, so every fork times exactly the same work.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class Fixtures {
+    private static final long SEED = 2023;
+    private static final int BLOCK_WIDTH = 40;
+    private static final int SCREEN_WIDTH = 700;
+    private static final int SCREEN_HEIGHT = 600;
+
+    /**
+     * Makes a fully terraformed map.
+     */
+    private static World generate(int width, int height, Enemies enemies, int enemyCount) {
+        World world = new World(width, height, BLOCK_WIDTH);
+        new WorldGenerator(world, SEED).terraform(world, enemies, enemyCount);
+        return world;
+    }
+
+    /**
+     * Terraforming a whole map from scratch, with count enemies, with the chunk rows made on every core.
+     */
+    public static class Terraform implements Fixture {
+        // Threads to make the rows on, or 0 for every core
+        protected int threads = 0;
+
+        private int width;
+        private int height;
+        private int enemyCount;
+
+        @Override
+        public void setUp(int width, int height, int count) {
+            this.width = width;
+            this.height = height;
+            this.enemyCount = count;
+        }
+
+        @Override
+        public long run() {
+            Enemies enemies = new Enemies(BLOCK_WIDTH, enemyCount);
+            World world = new World(width, height, BLOCK_WIDTH);
+
+            WorldGenerator generator = new WorldGenerator(world, SEED);
+            if (threads > 0)
+                generator.setThreads(threads);
+            generator.terraform(world, enemies, enemyCount);
+
+            return world.get(width / 2, height / 2) + enemies.x[enemyCount - 1];
+        }
+    }
+
+    /**
+     * Terraforming a whole map with every chunk row made on the calling thread, one after another.
+     */
+    public static class TerraformSerial extends Terraform {
+        public TerraformSerial() {
+            threads = 1;
+        }
+    }
+
+    /**
+     * One tick of the player running back and forth and jumping (Player.move, which does the x and y collisions),
+     * then checking for enemies, on a map with count enemies.
+     */
+    public static class PlayerMove implements Fixture {
+        private World world;
+        private Player player;
+        private Enemies enemies;
+        private EnemyGrid grid;
+        private int ticks;
+
+        @Override
+        public void setUp(int width, int height, int count) {
+            enemies = new Enemies(BLOCK_WIDTH, count);
+            world = generate(width, height, enemies, count);
+            grid = new EnemyGrid(enemies, width * BLOCK_WIDTH, height * BLOCK_WIDTH, 160);
+
+            // Start in the lower half of the map, where the enemies are
+            player = new Player(width * BLOCK_WIDTH / 2, height * BLOCK_WIDTH * 3 / 4, 30);
+        }
+
+        @Override
+        public long run() {
+            // Change direction every couple of seconds, and jump every so often
+            ticks++;
+            boolean right = (ticks / 240) % 2 == 0;
+            player.setMoveRight(right);
+            player.setMoveLeft(!right);
+            player.setMoveUp(ticks % 90 < 10);
+
+            player.move(world);
+            player.x = Math.max(0, Math.min(player.x, (world.getWidth() - 1) * BLOCK_WIDTH));
+            player.checkEnemyCollisions(enemies, grid);
+
+            return player.x + player.y;
+        }
+    }
+
+    /**
+     * The player's tile collisions at count spots in the lower half of the map, each one a fall and a step to the
+     * right from the spot: the in-liquid/damage check, then the x and y collisions.
+     * CollisionWindow is the old way, checking every tile in a 7x7 window around the player with collided();
+     * CollisionKernel is Player's own, which only looks up the flags of the tiles the player's box overlaps or
+     * sweeps through.
+     */
+    private static abstract class Collision implements Fixture {
+        protected static final int PLAYER_WIDTH = 30;
+        protected static final int STEP = 3;
+        protected static final int FALL = 4;
+
+        protected World world;
+        protected Player player;
+        private int[] spotX;
+        private int[] spotY;
+
+        @Override
+        public void setUp(int width, int height, int count) {
+            world = generate(width, height, new Enemies(BLOCK_WIDTH, 1), 1);
+            player = new Player(0, 0, PLAYER_WIDTH);
+
+            Random random = new Random(SEED);
+            spotX = new int[count];
+            spotY = new int[count];
+            for (int k = 0; k < count; k++) {
+                spotX[k] = random.nextInt((width - 2) * BLOCK_WIDTH);
+                spotY[k] = height * BLOCK_WIDTH / 2 + random.nextInt((height / 2 - 2) * BLOCK_WIDTH);
+            }
+        }
+
+        @Override
+        public long run() {
+            long sum = 0;
+            for (int k = 0; k < spotX.length; k++) {
+                player.x = spotX[k] + STEP;
+                player.y = spotY[k] + FALL;
+                collide(spotX[k], spotY[k]);
+                sum += player.x + player.y;
+            }
+            return sum;
+        }
+
+        protected abstract void collide(int fromX, int fromY);
+    }
+
+    public static class CollisionWindow extends Collision {
+        // Collision detection range of the player (in blocks)
+        private static final int COLLISION_RANGE = 3;
+
+        private boolean inLiquid;
+        private double health;
+
+        @Override
+        protected void collide(int fromX, int fromY) {
+            int blockWidth = world.getBlockWidth();
+
+            for (int i = player.x / blockWidth - COLLISION_RANGE; i <= player.x / blockWidth + COLLISION_RANGE; i++) {
+                for (int j = player.y / blockWidth - COLLISION_RANGE; j <= player.y / blockWidth + COLLISION_RANGE; j++) {
+                    if (!world.inBounds(i, j))
+                        continue;
+
+                    if (player.collided(i * blockWidth, j * blockWidth, blockWidth)) {
+                        byte tile = world.get(i, j);
+                        if (Tiles.LIQUID[tile])
+                            inLiquid = true;
+                        if (Tiles.DAMAGING[tile])
+                            health -= 0.2;
+                    }
+                }
+            }
+
+            for (int i = player.x / blockWidth - COLLISION_RANGE; i <= player.x / blockWidth + COLLISION_RANGE; i++) {
+                for (int j = player.y / blockWidth - COLLISION_RANGE; j <= player.y / blockWidth + COLLISION_RANGE; j++) {
+                    if (world.inBounds(i, j) && world.isSolid(i, j) && player.collided(i * blockWidth, j * blockWidth, blockWidth))
+                        player.x = player.x < i * blockWidth ? i * blockWidth - player.w : i * blockWidth + blockWidth;
+                }
+            }
+
+            for (int i = player.x / blockWidth - COLLISION_RANGE; i <= player.x / blockWidth + COLLISION_RANGE; i++) {
+                for (int j = player.y / blockWidth - COLLISION_RANGE; j <= player.y / blockWidth + COLLISION_RANGE; j++) {
+                    if (world.inBounds(i, j) && world.isSolid(i, j) && player.collided(i * blockWidth, j * blockWidth, blockWidth))
+                        player.y = player.y < j * blockWidth ? j * blockWidth - player.w : j * blockWidth + blockWidth;
+                }
+            }
+        }
+    }
+
+    public static class CollisionKernel extends Collision {
+        @Override
+        protected void collide(int fromX, int fromY) {
+            player.checkCollisions(world);
+            player.xCollide(world, fromX);
+            player.yCollide(world, fromY);
+        }
+    }
+
+    /**
+     * count explosions at different spots in solid stone, all applied in one batch like a tick's worth (Explosions).
+     * ExplosionSmall is the mining gun's blast, and ExplosionBig a radius 20 one.
+     */
+    private static abstract class Explosion implements Fixture {
+        private final int radius;
+
+        private World world;
+        private Explosions explosions;
+        private int[] spotI;
+        private int[] spotJ;
+
+        protected Explosion(int radius) {
+            this.radius = radius;
+        }
+
+        @Override
+        public void setUp(int width, int height, int count) {
+            world = generate(width, height, new Enemies(BLOCK_WIDTH, 1), 1);
+            explosions = new Explosions();
+
+            Random random = new Random(SEED);
+            spotI = new int[count];
+            spotJ = new int[count];
+            for (int k = 0; k < count; k++) {
+                spotI[k] = radius + 1 + random.nextInt(width - 2 * radius - 2);
+                spotJ[k] = radius + 1 + random.nextInt(height - 2 * radius - 2);
+            }
+        }
+
+        @Override
+        public void reset() {
+            // Fill the blast areas back in
+            for (int k = 0; k < spotI.length; k++)
+                for (int i = spotI[k] - radius; i <= spotI[k] + radius; i++)
+                    for (int j = spotJ[k] - radius; j <= spotJ[k] + radius; j++)
+                        world.setWithoutWaking(i, j, Tiles.STONE);
+        }
+
+        @Override
+        public long run() {
+            for (int k = 0; k < spotI.length; k++)
+                explosions.add(spotI[k], spotJ[k], radius);
+            explosions.apply(world);
+            return world.get(spotI[0], spotJ[0]);
+        }
+    }
+
+    public static class ExplosionSmall extends Explosion {
+        public ExplosionSmall() { super(Bullets.BLAST_RADIUS); }
+    }
+
+    public static class ExplosionBig extends Explosion {
+        public ExplosionBig() { super(20); }
+    }
+
+    /**
+     * One tick of count live bullets flying around the middle of an empty map, each one going until it leaves a
+     * screen-sized area (about 60 ticks) and then fired again, the way the full-auto mining gun keeps them coming.
+     */
+    public static class BulletSwarm implements Fixture {
+        private World world;
+        private Bullets bullets;
+        private Explosions explosions = new Explosions();
+        private int centerX;
+        private int centerY;
+        private int count;
+        private Random random;
+
+        @Override
+        public void setUp(int width, int height, int count) {
+            world = new World(width, height, BLOCK_WIDTH);
+            bullets = new Bullets(count);
+            centerX = width * BLOCK_WIDTH / 2;
+            centerY = height * BLOCK_WIDTH / 2;
+            this.count = count;
+            random = new Random(SEED);
+
+            // Spread them out, so they don't all leave on the same tick
+            for (int k = 0; k < count; k++) {
+                fire();
+                int steps = random.nextInt(SCREEN_HEIGHT / 2 / Bullets.SPEED);
+                bullets.x[k] += bullets.dx[k] * steps;
+                bullets.y[k] += bullets.dy[k] * steps;
+            }
+        }
+
+        private void fire() {
+            bullets.add(centerX, centerY, random.nextInt(201) - 100, random.nextInt(201) - 100);
+        }
+
+        @Override
+        public long run() {
+            bullets.update(world, explosions, centerX - SCREEN_WIDTH / 2, centerY - SCREEN_HEIGHT / 2,
+                    centerX + SCREEN_WIDTH / 2, centerY + SCREEN_HEIGHT / 2);
+            while (bullets.size() < count)
+                fire();
+            return (long) bullets.x[0];
+        }
+    }
+
+    /**
+     * count traces (Bullets.trace) in random directions from spots in the lower half of the map, each as long as a beam
+     * across half the screen, stopping at the first solid tile like a bullet or a beam would.
+     */
+    public static class Raycast implements Fixture {
+        private static final int RANGE = SCREEN_WIDTH / 2;
+
+        private World world;
+        private Bullets bullets;
+        private double[] fromX;
+        private double[] fromY;
+        private double[] toX;
+        private double[] toY;
+
+        @Override
+        public void setUp(int width, int height, int count) {
+            world = generate(width, height, new Enemies(BLOCK_WIDTH, 1), 1);
+            bullets = new Bullets(1);
+
+            Random random = new Random(SEED);
+            fromX = new double[count];
+            fromY = new double[count];
+            toX = new double[count];
+            toY = new double[count];
+            for (int k = 0; k < count; k++) {
+                double angle = random.nextDouble() * 2 * Math.PI;
+                fromX[k] = random.nextInt(width * BLOCK_WIDTH);
+                fromY[k] = height * BLOCK_WIDTH / 2 + random.nextInt(height * BLOCK_WIDTH / 2);
+                toX[k] = fromX[k] + RANGE * Math.cos(angle);
+                toY[k] = fromY[k] + RANGE * Math.sin(angle);
+            }
+        }
+
+        @Override
+        public long run() {
+            long sum = 0;
+            for (int k = 0; k < fromX.length; k++)
+                sum += bullets.trace(world, fromX[k], fromY[k], toX[k], toY[k]) + bullets.getHitI();
+            return sum;
+        }
+    }
+
+    /**
+     * One liquid update on a map where count percent of the tiles are water or acid, and a quarter are stone.
+     * The liquids settle over time, so reset() floods the map again.
+     * The parallel mode is timed separately by LiquidScalingBenchmark.
+     */
+    public static class Liquids implements Fixture {
+        private World world;
+        private int width;
+        private int height;
+        private int percent;
+
+        @Override
+        public void setUp(int width, int height, int count) {
+            this.width = width;
+            this.height = height;
+            this.percent = count;
+        }
+
+        @Override
+        public void reset() {
+            world = new World(width, height, BLOCK_WIDTH);
+            Random random = new Random(SEED);
+
+            for (int j = 0; j < height; j++) {
+                for (int i = 0; i < width; i++) {
+                    int r = random.nextInt(100);
+                    if (r < percent)
+                        world.set(i, j, r % 2 == 0 ? Tiles.WATER : Tiles.ACID);
+                    else if (r < percent + 25)
+                        world.set(i, j, Tiles.STONE);
+                }
+            }
+        }
+
+        @Override
+        public long run() {
+            world.updateLiquids();
+            return world.getLiquids().getAwakeCount();
+        }
+    }
+
+    /**
+     * A whole frame (what Game.Scene.paintComponent draws) rendered into an offscreen image,
+     * with the player in the lower half of a map with count enemies.
+     */
+    public static class Render implements Fixture {
+        // Whether to draw the first cutscene instead of the game
+        protected boolean inCutScene = false;
+
+        // Whether to draw every chunk on screen from scratch each frame, instead of from the chunk cache
+        protected boolean redrawMap = false;
+
+        private Renderer renderer;
+        private Snapshot snap;
+        private BufferedImage screen;
+        private Graphics g;
+
+        @Override
+        public void setUp(int width, int height, int count) {
+            Textures.load();
+
+            Enemies enemies = new Enemies(BLOCK_WIDTH, count);
+            World world = generate(width, height, enemies, count);
+            Player player = new Player(width * BLOCK_WIDTH / 2, height * BLOCK_WIDTH * 3 / 4, 30);
+
+            ArrayList<String> cutscenes = new ArrayList<String>();
+            for (int i = 0; i < 6; i++)
+                cutscenes.add("cutscene" + i + ".png");
+            int depthPerCutScene = (height - WorldGenerator.MAX_LAB_HEIGHT) / cutscenes.size();
+
+            // One tick, so the snapshot has everything in it
+            Simulation sim = new Simulation(world, player, enemies, SCREEN_WIDTH, SCREEN_HEIGHT,
+                    cutscenes.size(), depthPerCutScene);
+            sim.tick();
+            snap = sim.getSnapshot();
+
+            // Time the game, even if the player happens to land on a cutscene row
+            snap.inCutScene = inCutScene;
+            snap.curCutScene = 0;
+
+            renderer = new Renderer(world, player, enemies, cutscenes, depthPerCutScene, SCREEN_WIDTH, SCREEN_HEIGHT);
+            screen = new BufferedImage(SCREEN_WIDTH, SCREEN_HEIGHT, BufferedImage.TYPE_INT_RGB);
+            g = screen.getGraphics();
+
+            // The first cutscene is decoded in the background, so wait for it
+            while (inCutScene && renderer.getCutscenes().get(0) == null)
+                Thread.onSpinWait();
+        }
+
+        @Override
+        public long run() {
+            if (redrawMap)
+                renderer.getTileRenderer().invalidate();
+
+            renderer.paint(g, snap, 0.5);
+            return screen.getRGB(SCREEN_WIDTH / 2, SCREEN_HEIGHT / 2);
+        }
+    }
+
+    /**
+     * A frame of the first cutscene (the instructions), once it's been decoded.
+     */
+    public static class RenderCutscene extends Render {
+        public RenderCutscene() {
+            inCutScene = true;
+        }
+    }
+
+    /**
+     * A frame where every chunk on screen has to be drawn again, tile by tile out of the texture atlas,
+     * like right after the map around the player is blown up.
+     */
+    public static class RenderRedraw extends Render {
+        public RenderRedraw() {
+            redrawMap = true;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Reports how many map cells per second the world generator gets through, for the game's map and for maps hundreds of
+ * times bigger, how long a single streamed chunk row takes to make at different depths (which shouldn't change), and
+ * how much longer it takes as acid lakes get bigger. A row only grows its own patches (see WorldGenerator), so that
+ * should go up with the area of a lake, not its volume: the deepest lakes have to stay within LAKE_BUDGET_MS a row,
+ * or the benchmark fails.
+ * Usage: GenerationBenchmark [rounds]
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class GenerationBenchmark {
+    // Map sizes in blocks: the game's map, then 100 and 500 times as many cells
+    private static final int[][] SIZES = {{75, 500}, {750, 5000}, {2500, 7500}};
+
+    // Chunk rows to make at each depth
+    private static final int STREAMED_ROWS = 200;
+
+    // How far acid lakes spread, and the chunk rows to make at each
+    private static final int[] LAKE_DEPTHS = {3, 10, 30, 100};
+    private static final int LAKE_ROWS = 50;
+
+    // Most a chunk row can take with the deepest lakes, in milliseconds
+    private static final double LAKE_BUDGET_MS = 40;
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+
+        for (int[] size : SIZES) {
+            int width = size[0];
+            int height = size[1];
+
+            for (int round = 0; round < rounds; round++) {
+                World world = new World(width, height, 40);
+                Enemies enemies = new Enemies(40, 50);
+
+                long start = System.nanoTime();
+                new WorldGenerator(world, 2023 + round).terraform(world, enemies, 50);
+                long elapsed = System.nanoTime() - start;
+
+                System.out.printf("%dx%d terraform: %8.1f ms, %6.2f M cells/s%n", width, height,
+                        elapsed / 1e6, (double) width * height / (elapsed / 1e9) / 1e6);
+            }
+        }
+
+        // Chunk rows of the game's width, near the top of a map as deep as pixel coordinates go, and further down
+        World deep = new World(75, Integer.MAX_VALUE / 40, 40, WorldStreamer.WINDOW_ROWS);
+        WorldGenerator generator = new WorldGenerator(deep, 2023);
+
+        for (int round = 0; round < rounds; round++) {
+            for (int depth = 0; depth < deep.getChunkRows() - STREAMED_ROWS; depth = depth * 10 + 1000) {
+                long start = System.nanoTime();
+                for (int cj = depth; cj < depth + STREAMED_ROWS; cj++)
+                    generator.generateChunkRow(cj);
+                long elapsed = System.nanoTime() - start;
+
+                System.out.printf("chunk rows from row %,13d: %7.1f us/row%n", (long) depth * World.CHUNK_SIZE,
+                        elapsed / 1e3 / STREAMED_ROWS);
+            }
+        }
+
+        // Chunk rows in the middle of a map 10 times as wide as the game's, with bigger and bigger acid lakes
+        World wide = new World(750, 5000, 40, WorldStreamer.WINDOW_ROWS);
+        WorldGenerator lakes = new WorldGenerator(wide, 2023);
+        int middle = wide.getChunkRows() / 2;
+        double deepest = 0;
+
+        for (int round = 0; round < rounds; round++) {
+            for (int depth : LAKE_DEPTHS) {
+                lakes.setTerraformDepth(Tiles.ACID, depth);
+
+                // The first row grows the patches of every row around it too, so it isn't timed
+                lakes.generateChunkRow(middle);
+
+                long start = System.nanoTime();
+                for (int cj = middle + 1; cj <= middle + LAKE_ROWS; cj++)
+                    lakes.generateChunkRow(cj);
+                long elapsed = System.nanoTime() - start;
+
+                System.out.printf("acid lakes, depth %3d: %9.1f us/row%n", depth, elapsed / 1e3 / LAKE_ROWS);
+                if (depth == LAKE_DEPTHS[LAKE_DEPTHS.length - 1])
+                    deepest = elapsed / 1e6 / LAKE_ROWS;
+            }
+        }
+
+        // Only the last round counts, once everything's warmed up
+        if (deepest > LAKE_BUDGET_MS) {
+            System.err.printf("acid lakes %d deep took %.1f ms/row, over the budget of %.0f ms%n",
+                    LAKE_DEPTHS[LAKE_DEPTHS.length - 1], deepest, LAKE_BUDGET_MS);
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Compares the frame time of the old darkness effect (a new Color and a fillRect over every tile)
+ * with the Lighting mask (one drawImage over the whole screen), rendering a screen of tiles into an offscreen image.
+ * The tiles are drawn the way the game draws them, in one SpriteBatch over a black background.
+ * Usage: LightingBenchmark [frames]
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class LightingBenchmark {
+    private static final int SCREEN_WIDTH = 700;
+    private static final int SCREEN_HEIGHT = 600;
+    private static final int BLOCK_WIDTH = 40;
+
+    public static void main(String[] args) {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+
+        BufferedImage screen = new BufferedImage(SCREEN_WIDTH, SCREEN_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Lighting lighting = new Lighting(SCREEN_WIDTH, SCREEN_HEIGHT);
+        SpriteBatch batch = new SpriteBatch(true);
+        int[] camera = new int[]{20 * BLOCK_WIDTH, 20 * BLOCK_WIDTH};
+
+        for (int round = 0; round < 3; round++) {
+            Graphics g = screen.getGraphics();
+
+            long start = System.nanoTime();
+            for (int f = 0; f < frames; f++)
+                drawTiles(g, batch, camera, true);
+            double perTile = (System.nanoTime() - start) / 1e6 / frames;
+
+            start = System.nanoTime();
+            for (int f = 0; f < frames; f++) {
+                drawTiles(g, batch, camera, false);
+                lighting.paint(g);
+            }
+            double mask = (System.nanoTime() - start) / 1e6 / frames;
+
+            g.dispose();
+            System.out.printf("round %d: per-tile overlay %.3f ms/frame, lighting mask %.3f ms/frame%n", round, perTile, mask);
+        }
+    }
+
+    /**
+     * Draws a screen of tiles around the camera, optionally with the old per-tile darkness overlay.
+     */
+    private static void drawTiles(Graphics g, SpriteBatch batch, int[] camera, boolean perTileOverlay) {
+        int columns = SCREEN_WIDTH / BLOCK_WIDTH;
+        int rows = SCREEN_HEIGHT / BLOCK_WIDTH;
+        int minI = camera[0] / BLOCK_WIDTH - columns / 2 - 1;
+        int maxI = camera[0] / BLOCK_WIDTH + columns / 2 + 1;
+        int minJ = camera[1] / BLOCK_WIDTH - rows / 2 - 1;
+        int maxJ = camera[1] / BLOCK_WIDTH + rows / 2 + 1;
+
+        // Black outline, then every tile slightly smaller over it
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, SCREEN_WIDTH, SCREEN_HEIGHT);
+
+        for (int i = minI; i <= maxI; i++) {
+            for (int j = minJ; j <= maxJ; j++) {
+                batch.add(Tiles.texture((byte) ((i + j) % 3)), i * BLOCK_WIDTH - camera[0] + SCREEN_WIDTH / 2,
+                        j * BLOCK_WIDTH - camera[1] + SCREEN_HEIGHT / 2);
+            }
+        }
+        batch.flush(g, BLOCK_WIDTH - 1, BLOCK_WIDTH - 1);
+
+        if (!perTileOverlay)
+            return;
+
+        for (int i = minI; i <= maxI; i++) {
+            for (int j = minJ; j <= maxJ; j++) {
+                int x = i * BLOCK_WIDTH;
+                int y = j * BLOCK_WIDTH;
+                g.setColor(new Color(0, 0, 0, Lighting.opacity(camera[0] - x, camera[1] - y)));
+                g.fillRect(x - camera[0] + SCREEN_WIDTH / 2, y - camera[1] + SCREEN_HEIGHT / 2, BLOCK_WIDTH, BLOCK_WIDTH);
+            }
+        }
+    }
+}
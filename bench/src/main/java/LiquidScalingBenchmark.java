@@ -0,0 +1,74 @@
+import java.util.Random;
+
+/**
+ * Times the parallel liquid mode at 1, 2, 4 and 8 threads on a map flooded with water and acid,
+ * and checks that every thread count ends up with exactly the same map.
+ * Usage: LiquidScalingBenchmark [width] [height] [ticks]
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class LiquidScalingBenchmark {
+    public static void main(String[] args) {
+        int width = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int height = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        System.out.println("Map " + width + "x" + height + ", " + ticks + " ticks, "
+                + Runtime.getRuntime().availableProcessors() + " cores available");
+
+        long expected = 0;
+        for (int threads : new int[]{1, 2, 4, 8}) {
+            World world = floodedWorld(width, height);
+            world.getLiquids().setThreads(threads);
+
+            // Warm up, then time
+            for (int t = 0; t < ticks / 4; t++)
+                world.updateLiquids();
+
+            long start = System.nanoTime();
+            for (int t = 0; t < ticks; t++)
+                world.updateLiquids();
+            long elapsed = System.nanoTime() - start;
+
+            long checksum = checksum(world);
+            if (threads == 1)
+                expected = checksum;
+
+            System.out.printf("%d thread(s): %8.3f ms/tick  %s%n", threads, elapsed / 1e6 / ticks,
+                    checksum == expected ? "same map" : "DIFFERENT MAP");
+
+            world.getLiquids().setThreads(0);
+        }
+    }
+
+    /**
+     * A map with the same random mix of stone, water, acid and empty cave every time.
+     */
+    private static World floodedWorld(int width, int height) {
+        World world = new World(width, height, 40);
+        Random random = new Random(2023);
+
+        for (int j = 0; j < height; j++) {
+            for (int i = 0; i < width; i++) {
+                double r = random.nextDouble();
+                if (r < 0.25)
+                    world.set(i, j, Tiles.STONE);
+                else if (r < 0.45)
+                    world.set(i, j, Tiles.WATER);
+                else if (r < 0.60)
+                    world.set(i, j, Tiles.ACID);
+            }
+        }
+
+        return world;
+    }
+
+    private static long checksum(World world) {
+        long sum = 0;
+        for (int j = 0; j < world.getHeight(); j++)
+            for (int i = 0; i < world.getWidth(); i++)
+                sum = sum * 31 + world.get(i, j);
+        return sum;
+    }
+}
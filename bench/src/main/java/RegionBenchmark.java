@@ -0,0 +1,154 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Saves a whole terraformed world into region files and loads it back, then times the things the game actually does:
+ * saving only the chunks that some explosions changed, and paging in the chunks around a player from a closed save.
+ * Everything is done once on a smaller world first without printing anything, so the times don't include the JIT.
+ * Usage: RegionBenchmark [size in blocks] [explosions]
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class RegionBenchmark {
+    private static final int BLOCK_WIDTH = 40;
+
+    // The chunks the game keeps loaded around the player: the streaming window, as wide as the game's map
+    private static final int VIEW_COLUMNS = 5;
+    private static final int VIEW_ROWS = WorldStreamer.WINDOW_ROWS;
+
+    // Size of the world for the warm-up, in blocks
+    private static final int WARM_UP_SIZE = 2000;
+
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int explosions = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        run(Math.min(size, WARM_UP_SIZE), explosions, new PrintStream(OutputStream.nullOutputStream()));
+        run(size, explosions, System.out);
+    }
+
+    /**
+     * Does everything once, on a world of one size, in a new temporary folder that's deleted afterwards.
+     * @param out Where to print the times
+     */
+    private static void run(int size, int explosions, PrintStream out) throws IOException {
+        Path folder = Files.createTempDirectory("regions");
+
+        // Make the world a chunk row at a time
+        long start = System.nanoTime();
+        World world = emptyWorld(size);
+        WorldGenerator generator = new WorldGenerator(world, 2023);
+        for (int cj = 0; cj < world.getChunkRows(); cj++) {
+            WorldGenerator.ChunkRow row = generator.generateChunkRow(cj);
+            world.load(cj, row.tiles, row.decor);
+        }
+        out.printf("%dx%d world (%d chunks) made in %.1f s%n", size, size,
+                (long) world.getChunkColumns() * world.getChunkRows(), (System.nanoTime() - start) / 1e9);
+
+        long expected = checksum(world);
+
+        // Save every chunk
+        start = System.nanoTime();
+        RegionStore store = new RegionStore(folder);
+        for (int cj = 0; cj < world.getChunkRows(); cj++)
+            for (int ci = 0; ci < world.getChunkColumns(); ci++)
+                store.write(world, ci, cj);
+        store.close();
+        report(out, "Saved every chunk", store.getWriteCount(), System.nanoTime() - start);
+
+        long bytes = folderSize(folder);
+        out.printf("    %.1f MB on disk, %.1f%% of the raw tiles and decor%n", bytes / 1e6,
+                100.0 * bytes / (2.0 * size * size));
+
+        // Load every chunk into a new world
+        world = null;
+        start = System.nanoTime();
+        store = new RegionStore(folder);
+        world = emptyWorld(size);
+        for (int cj = 0; cj < world.getChunkRows(); cj++) {
+            byte[][] tiles = new byte[world.getChunkColumns()][World.CHUNK_SIZE * World.CHUNK_SIZE];
+            DecorChunk[] decor = new DecorChunk[world.getChunkColumns()];
+            for (int ci = 0; ci < world.getChunkColumns(); ci++)
+                decor[ci] = store.read(ci, cj, tiles[ci]);
+            world.load(cj, tiles, decor);
+        }
+        report(out, "Loaded every chunk", store.getReadCount(), System.nanoTime() - start);
+        out.println("    " + (checksum(world) == expected ? "same world" : "DIFFERENT WORLD"));
+
+        // Blow some holes, and save only the chunks that changed
+        int[] versions = new int[world.getChunkColumns() * world.getChunkRows()];
+        for (int cj = 0; cj < world.getChunkRows(); cj++)
+            for (int ci = 0; ci < world.getChunkColumns(); ci++)
+                versions[cj * world.getChunkColumns() + ci] = world.getChunkVersion(ci, cj);
+
+        Random random = new Random(2023);
+        Explosions blasts = new Explosions();
+        for (int k = 0; k < explosions; k++)
+            blasts.add(random.nextInt(size), random.nextInt(size), Bullets.BLAST_RADIUS);
+        blasts.apply(world);
+
+        long writesBefore = store.getWriteCount();
+        start = System.nanoTime();
+        for (int cj = 0; cj < world.getChunkRows(); cj++)
+            for (int ci = 0; ci < world.getChunkColumns(); ci++)
+                if (world.getChunkVersion(ci, cj) != versions[cj * world.getChunkColumns() + ci])
+                    store.write(world, ci, cj);
+        store.close();
+        report(out, explosions + " explosions saved", store.getWriteCount() - writesBefore, System.nanoTime() - start);
+
+        // Page in the game's window of chunks at spots all over the world, from a freshly opened save
+        int views = 100;
+        byte[] tiles = new byte[World.CHUNK_SIZE * World.CHUNK_SIZE];
+        byte[] decor = new byte[World.CHUNK_SIZE * World.CHUNK_SIZE];
+        store = new RegionStore(folder);
+        start = System.nanoTime();
+        for (int v = 0; v < views; v++) {
+            int minI = random.nextInt(world.getChunkColumns() - VIEW_COLUMNS);
+            int minJ = random.nextInt(world.getChunkRows() - VIEW_ROWS);
+            for (int cj = minJ; cj < minJ + VIEW_ROWS; cj++)
+                for (int ci = minI; ci < minI + VIEW_COLUMNS; ci++)
+                    store.read(ci, cj, tiles, decor);
+        }
+        long elapsed = System.nanoTime() - start;
+        out.printf("Paged in %d views of %dx%d chunks: %.2f ms per view%n", views, VIEW_COLUMNS, VIEW_ROWS,
+                elapsed / 1e6 / views);
+
+        store.delete();
+    }
+
+    /**
+     * A world with room for every chunk row, and none loaded yet.
+     */
+    private static World emptyWorld(int size) {
+        return new World(size, size, BLOCK_WIDTH, (size + World.CHUNK_SIZE - 1) / World.CHUNK_SIZE);
+    }
+
+    private static void report(PrintStream out, String what, long chunks, long elapsed) {
+        out.printf("%s: %d chunks in %.1f ms, %.2f us per chunk%n", what, chunks, elapsed / 1e6,
+                elapsed / 1e3 / Math.max(1, chunks));
+    }
+
+    private static long checksum(World world) {
+        long sum = 0;
+        for (int j = 0; j < world.getHeight(); j++) {
+            for (int i = 0; i < world.getWidth(); i++) {
+                sum = sum * 31 + world.get(i, j);
+                sum = sum * 31 + world.getDecor(i, j);
+            }
+        }
+        return sum;
+    }
+
+    private static long folderSize(Path folder) {
+        long total = 0;
+        for (File f : folder.toFile().listFiles())
+            total += f.length();
+        return total;
+    }
+}
@@ -0,0 +1,39 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times one tick of the bullet pool (Bullets.update) with lots of bullets in the air, firing new ones as fast as the
+ * old ones leave.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class BulletBenchmark {
+    // Map size in blocks: the game's map
+    @Param({"75x500"})
+    public String mapSize;
+
+    @Param({"60", "5000"})
+    public int bullets;
+
+    private Fixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = Fixture.load("Fixtures$BulletSwarm", mapSize, bullets);
+    }
+
+    @Benchmark
+    public long update() {
+        return fixture.run();
+    }
+}
@@ -0,0 +1,43 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the player's tile collisions at a batch of spots: the old 7x7 window of collided() checks against the
+ * flag lookups of only the tiles the player's box overlaps or sweeps through.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class CollisionBenchmark {
+    // Map size in blocks. The first one is the game's map.
+    @Param({"75x500", "1000x1000"})
+    public String mapSize;
+
+    @Param({"Window", "Kernel"})
+    public String collisions;
+
+    // Spots checked per call
+    private static final int SPOTS = 1024;
+
+    private Fixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = Fixture.load("Fixtures$Collision" + collisions, mapSize, SPOTS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SPOTS)
+    public long collide() {
+        return fixture.run();
+    }
+}
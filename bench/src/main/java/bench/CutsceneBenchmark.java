@@ -0,0 +1,31 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times drawing a cutscene frame into an offscreen image, which the game does every repaint while one is playing.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class CutsceneBenchmark {
+    private Fixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = Fixture.load("Fixtures$RenderCutscene", "75x500", 50);
+    }
+
+    @Benchmark
+    public long paint() {
+        return fixture.run();
+    }
+}
@@ -0,0 +1,47 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times a batch of explosions (Explosions.apply) in solid stone, either the mining gun's small blasts or big ones.
+ * The stone is filled back in before every call, so every call blows up the same amount.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class ExplosionBenchmark {
+    // Map size in blocks. The first one is the game's map.
+    @Param({"75x500", "300x500", "1000x1000"})
+    public String mapSize;
+
+    @Param({"1", "64"})
+    public int explosions;
+
+    @Param({"Small", "Big"})
+    public String blast;
+
+    private Fixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = Fixture.load("Fixtures$Explosion" + blast, mapSize, explosions);
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+        fixture.reset();
+    }
+
+    @Benchmark
+    public long explode() {
+        return fixture.run();
+    }
+}
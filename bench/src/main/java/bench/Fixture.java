@@ -0,0 +1,51 @@
+package bench;
+
+/**
+ * One of the game's hot paths, set up and ready to be timed.
+ * JMH won't run benchmarks in the default package, and a class in a named package can't import the game's classes
+ * from the default package, so each benchmark loads its fixture (see Fixtures) by name and runs it through this.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public interface Fixture {
+    /**
+     * Builds everything the hot path needs.
+     * @param width The width of the map, in blocks
+     * @param height The height of the map, in blocks
+     * @param count The number of things to put in the map (enemies, explosions, spots, bullets, rays, or percent liquid)
+     */
+    void setUp(int width, int height, int count);
+
+    /**
+     * Puts back whatever the hot path used up, for fixtures that can't run forever on the same state.
+     */
+    default void reset() {}
+
+    /**
+     * Runs the hot path once.
+     * @return Something computed from the result, so the work can't be optimized away
+     */
+    long run();
+
+    /**
+     * Loads and sets up a fixture.
+     * @param name The binary name of the fixture class, such as "Fixtures$Terraform"
+     * @param mapSize The size of the map, as "width x height" in blocks (for example "75x500")
+     * @param count The number of things to put in the map
+     * @return The fixture, ready to run
+     */
+    static Fixture load(String name, String mapSize, int count) {
+        String[] size = mapSize.split("x");
+
+        Fixture fixture;
+        try {
+            fixture = (Fixture) Class.forName(name).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Can't load fixture " + name, e);
+        }
+
+        fixture.setUp(Integer.parseInt(size[0]), Integer.parseInt(size[1]), count);
+        return fixture;
+    }
+}
@@ -0,0 +1,44 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times one update of every liquid on a flooded map (LiquidSim, which replaced Water.update and Acid.update).
+ * The liquids settle as they flow, so the map is flooded again before every iteration.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class LiquidBenchmark {
+    // Map size in blocks. The first one is the game's map.
+    @Param({"75x500", "300x500", "1000x1000"})
+    public String mapSize;
+
+    @Param({"5", "40"})
+    public int liquidPercent;
+
+    private Fixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = Fixture.load("Fixtures$Liquids", mapSize, liquidPercent);
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        fixture.reset();
+    }
+
+    @Benchmark
+    public long update() {
+        return fixture.run();
+    }
+}
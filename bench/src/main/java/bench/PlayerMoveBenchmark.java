@@ -0,0 +1,39 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times one tick of the player running and jumping around: Player.move (with xCollide and yCollide)
+ * and checkEnemyCollisions.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class PlayerMoveBenchmark {
+    // Map size in blocks. The first one is the game's map.
+    @Param({"75x500", "300x500", "1000x1000"})
+    public String mapSize;
+
+    @Param({"50", "5000"})
+    public int enemies;
+
+    private Fixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = Fixture.load("Fixtures$PlayerMove", mapSize, enemies);
+    }
+
+    @Benchmark
+    public long move() {
+        return fixture.run();
+    }
+}
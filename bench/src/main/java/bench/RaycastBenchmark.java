@@ -0,0 +1,40 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times bullet hit detection (Bullets.trace) along half-screen-long lines through a terraformed map, which is the most
+ * a beam or a very fast bullet covers in a tick.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class RaycastBenchmark {
+    // Map size in blocks. The first one is the game's map.
+    @Param({"75x500", "1000x1000"})
+    public String mapSize;
+
+    // Lines traced per call
+    private static final int RAYS = 1024;
+
+    private Fixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = Fixture.load("Fixtures$Raycast", mapSize, RAYS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public long trace() {
+        return fixture.run();
+    }
+}
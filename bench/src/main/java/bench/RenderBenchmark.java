@@ -0,0 +1,38 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times drawing a whole frame (what Game.Scene.paintComponent draws) into an offscreen image.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class RenderBenchmark {
+    // Map size in blocks. The first one is the game's map.
+    @Param({"75x500", "300x500", "1000x1000"})
+    public String mapSize;
+
+    @Param({"50", "5000"})
+    public int enemies;
+
+    private Fixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = Fixture.load("Fixtures$Render", mapSize, enemies);
+    }
+
+    @Benchmark
+    public long paint() {
+        return fixture.run();
+    }
+}
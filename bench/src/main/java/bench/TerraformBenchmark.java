@@ -0,0 +1,42 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times terraforming a whole map from scratch (WorldGenerator.terraform, formerly Scene.terraform),
+ * with the enemy spawns and the lab, with the chunk rows made on every core (Terraform) or on one (TerraformSerial).
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class TerraformBenchmark {
+    // Map size in blocks. The first one is the game's map.
+    @Param({"75x500", "300x500", "1000x1000"})
+    public String mapSize;
+
+    @Param({"50", "5000"})
+    public int enemies;
+
+    @Param({"Terraform", "TerraformSerial"})
+    public String variant;
+
+    private Fixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = Fixture.load("Fixtures$" + variant, mapSize, enemies);
+    }
+
+    @Benchmark
+    public long terraform() {
+        return fixture.run();
+    }
+}
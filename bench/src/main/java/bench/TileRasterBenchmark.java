@@ -0,0 +1,32 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times drawing a frame where every chunk of the map on screen is drawn from scratch out of the texture atlas,
+ * which the game does whenever the map around the player changes (digging, explosions, liquids flowing).
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class TileRasterBenchmark {
+    private Fixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = Fixture.load("Fixtures$RenderRedraw", "75x500", 50);
+    }
+
+    @Benchmark
+    public long paint() {
+        return fixture.run();
+    }
+}
@@ -0,0 +1,91 @@
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Build step that packs every texture in the imgs folder into one image, the texture atlas, along with a manifest of
+ * where each texture is in it. The game loads the atlas from the classpath (see Textures), so it's a single read
+ * wherever the game is run from, and every tile and sprite is drawn out of the same image.
+ * The cutscenes are whole screens that are only shown now and then, so they stay separate (see Cutscenes).
+ * Run it again after adding or changing a texture:
+ *     java -cp game/target/classes AtlasPacker [imgs folder] [atlas folder]
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class AtlasPacker {
+    // Width of the atlas, and the empty space around each texture so scaling one never picks up its neighbor
+    private static final int ATLAS_WIDTH = 256;
+    private static final int PADDING = 1;
+
+    /**
+     * Main method
+     * @param args The folder of textures (src/imgs by default), and the folder to write the atlas to (src/atlas)
+     */
+    public static void main(String[] args) throws IOException {
+        File imgs = new File(args.length > 0 ? args[0] : "src/imgs");
+        File out = new File(args.length > 1 ? args[1] : "src/atlas");
+
+        File[] files = imgs.listFiles((dir, name) -> name.endsWith(".png") && !name.startsWith("cutscene"));
+        if (files == null || files.length == 0)
+            throw new IOException("No textures in " + imgs);
+
+        // Same order every time, so the atlas only changes when a texture does
+        Arrays.sort(files);
+
+        ArrayList<String> names = new ArrayList<String>();
+        ArrayList<BufferedImage> textures = new ArrayList<BufferedImage>();
+        for (File f : files) {
+            names.add(f.getName().substring(0, f.getName().length() - ".png".length()));
+            textures.add(ImageIO.read(f));
+        }
+
+        // Shelves: left to right until a texture doesn't fit, then start a new row under the tallest one so far
+        int[] x = new int[textures.size()];
+        int[] y = new int[textures.size()];
+        int shelfX = 0;
+        int shelfY = 0;
+        int shelfHeight = 0;
+        for (int k = 0; k < textures.size(); k++) {
+            int w = textures.get(k).getWidth() + 2 * PADDING;
+            int h = textures.get(k).getHeight() + 2 * PADDING;
+
+            if (shelfX + w > ATLAS_WIDTH) {
+                shelfX = 0;
+                shelfY += shelfHeight;
+                shelfHeight = 0;
+            }
+
+            x[k] = shelfX + PADDING;
+            y[k] = shelfY + PADDING;
+            shelfX += w;
+            shelfHeight = Math.max(shelfHeight, h);
+        }
+
+        BufferedImage atlas = new BufferedImage(ATLAS_WIDTH, shelfY + shelfHeight, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = atlas.createGraphics();
+        for (int k = 0; k < textures.size(); k++)
+            g.drawImage(textures.get(k), x[k], y[k], null);
+        g.dispose();
+
+        if (!out.isDirectory() && !out.mkdirs())
+            throw new IOException("Can't make " + out);
+
+        ImageIO.write(atlas, "png", new File(out, Textures.ATLAS_NAME + ".png"));
+        try (PrintWriter manifest = new PrintWriter(new File(out, Textures.ATLAS_NAME + ".txt"), "UTF-8")) {
+            manifest.println("# Made by AtlasPacker from " + imgs.getPath() + ". Each line is: name x y width height");
+            for (int k = 0; k < textures.size(); k++) {
+                manifest.println(names.get(k) + " " + x[k] + " " + y[k] + " "
+                        + textures.get(k).getWidth() + " " + textures.get(k).getHeight());
+            }
+        }
+
+        System.out.println("Packed " + textures.size() + " textures into a " + atlas.getWidth() + "x" + atlas.getHeight()
+                + " atlas in " + out);
+    }
+}
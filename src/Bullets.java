@@ -0,0 +1,218 @@
+import java.awt.*;
+
+/**
+ * Every bullet fired by the player's mining gun, stored as arrays of positions and velocities in world coordinates
+ * (pixels) instead of one object per bullet.
+ * Bullets live in a pool with a fixed capacity: firing one just fills in the next free slot, and removing one moves the
+ * last bullet into its place, so even a full-auto stream of them never makes any garbage.
+ * Hits are found by walking every tile a bullet's path crosses during the tick (see trace()), so a bullet can't skip
+ * through a thin wall however fast it goes, and a beam can reach across the screen in one go.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class Bullets {
+    // How far a bullet moves each tick
+    public static final int SPEED = 6;
+
+    private static final int WIDTH = 5;
+    private static final int RADIUS = 5;
+
+    // How far a bullet's blast reaches, in tiles
+    public static final int BLAST_RADIUS = 2;
+
+    // What trace() ran into
+    public static final int CLEAR = 0;
+    public static final int SOLID = 1;
+    public static final int OFF_MAP = 2;
+
+    // Positions and how far they move each tick
+    private int count;
+    public double[] x;
+    public double[] y;
+    public double[] dx;
+    public double[] dy;
+
+    // The tile the last trace() stopped at
+    private int hitI;
+    private int hitJ;
+
+    /**
+     * Constructor
+     * @param capacity The number of bullets there's room for
+     */
+    public Bullets(int capacity) {
+        this.count = 0;
+
+        this.x = new double[capacity];
+        this.y = new double[capacity];
+        this.dx = new double[capacity];
+        this.dy = new double[capacity];
+    }
+
+    /** Getters **/
+    public int size() { return this.count; }
+    public int getCapacity() { return this.x.length; }
+    public int getHitI() { return this.hitI; }
+    public int getHitJ() { return this.hitJ; }
+
+    /**
+     * Fires a bullet.
+     * @param x The x-coordinate it's fired from
+     * @param y The y-coordinate it's fired from
+     * @param aimX How far right of (x, y) it's aimed
+     * @param aimY How far down from (x, y) it's aimed
+     */
+    public void add(int x, int y, int aimX, int aimY) {
+        if (count == this.x.length)
+            throw new IllegalStateException("No room for more than " + count + " bullets");
+
+        // Normalize the aim instead of going through an angle, so there's no trig. Aiming right at (x, y) fires right.
+        double length = Math.sqrt((double) aimX * aimX + (double) aimY * aimY);
+        this.x[count] = x;
+        this.y[count] = y;
+        this.dx[count] = length == 0 ? SPEED : SPEED * aimX / length;
+        this.dy[count] = length == 0 ? 0 : SPEED * aimY / length;
+        count++;
+    }
+
+    /**
+     * Removes a bullet by moving the last bullet into its place.
+     * @param index The index of the bullet
+     */
+    public void remove(int index) {
+        count--;
+        this.x[index] = this.x[count];
+        this.y[index] = this.y[count];
+        this.dx[index] = this.dx[count];
+        this.dy[index] = this.dy[count];
+    }
+
+    /**
+     * Moves every bullet. Bullets that hit a solid tile anywhere along the way explode and are removed, and bullets that
+     * leave the given area or the loaded map are removed.
+     * @param world The game map
+     * @param explosions Where the blasts are queued up
+     * @param minX The left of the area bullets can be in (such as the screen around the player)
+     * @param minY The top of the area
+     * @param maxX The right of the area
+     * @param maxY The bottom of the area
+     */
+    public void update(World world, Explosions explosions, int minX, int minY, int maxX, int maxY) {
+        // Removing a bullet moves one that hasn't been updated yet into its place, so only step past the ones kept.
+        int k = 0;
+        while (k < count) {
+            double fromX = x[k];
+            double fromY = y[k];
+            x[k] += dx[k];
+            y[k] += dy[k];
+
+            int hit = trace(world, fromX, fromY, x[k], y[k]);
+
+            // Collisions
+            if (hit == SOLID) {
+                explosions.add(hitI, hitJ, BLAST_RADIUS);
+                remove(k);
+                continue;
+            }
+
+            // Out of range
+            if (hit == OFF_MAP || x[k] < minX || x[k] > maxX || y[k] < minY || y[k] > maxY) {
+                remove(k);
+                continue;
+            }
+
+            k++;
+        }
+    }
+
+    /**
+     * Fires an instant beam, which explodes at the first solid tile within range.
+     * @param world The game map
+     * @param explosions Where the blast is queued up
+     * @param x The x-coordinate it's fired from
+     * @param y The y-coordinate it's fired from
+     * @param aimX How far right of (x, y) it's aimed
+     * @param aimY How far down from (x, y) it's aimed
+     * @param range How far the beam goes, in pixels
+     * @return True if the beam hit something
+     */
+    public boolean beam(World world, Explosions explosions, int x, int y, int aimX, int aimY, int range) {
+        double length = Math.sqrt((double) aimX * aimX + (double) aimY * aimY);
+        if (length == 0)
+            return false;
+
+        if (trace(world, x, y, x + range * aimX / length, y + range * aimY / length) != SOLID)
+            return false;
+
+        explosions.add(hitI, hitJ, BLAST_RADIUS);
+        return true;
+    }
+
+    /**
+     * Walks every tile that a line from (fromX, fromY) to (toX, toY) passes through, in order, and stops at the first one
+     * that's solid or off the loaded map. The tile it stopped at is left in getHitI() and getHitJ().
+     * This is Amanatides and Woo's grid traversal: the line's distance to the next column edge and the next row edge are
+     * kept track of, and it always steps over whichever edge is closer, so each tile costs a comparison and an add.
+     * @param world The game map
+     * @return SOLID, OFF_MAP, or CLEAR if the whole line was clear
+     */
+    public int trace(World world, double fromX, double fromY, double toX, double toY) {
+        int blockWidth = world.getBlockWidth();
+
+        int i = (int) Math.floor(fromX / blockWidth);
+        int j = (int) Math.floor(fromY / blockWidth);
+        int endI = (int) Math.floor(toX / blockWidth);
+        int endJ = (int) Math.floor(toY / blockWidth);
+
+        // Most ticks a bullet doesn't leave its tile, so there's nothing to walk
+        if (i == endI && j == endJ) {
+            hitI = i;
+            hitJ = j;
+            return !world.inBounds(i, j) ? OFF_MAP : world.isSolid(i, j) ? SOLID : CLEAR;
+        }
+
+        double lineX = toX - fromX;
+        double lineY = toY - fromY;
+        int stepI = lineX > 0 ? 1 : -1;
+        int stepJ = lineY > 0 ? 1 : -1;
+
+        // How far along the line (0 to 1) the next column and row edges are, and how far apart the edges are
+        double nextX = lineX == 0 ? Double.POSITIVE_INFINITY : ((i + (stepI > 0 ? 1 : 0)) * blockWidth - fromX) / lineX;
+        double nextY = lineY == 0 ? Double.POSITIVE_INFINITY : ((j + (stepJ > 0 ? 1 : 0)) * blockWidth - fromY) / lineY;
+        double deltaX = lineX == 0 ? Double.POSITIVE_INFINITY : blockWidth / Math.abs(lineX);
+        double deltaY = lineY == 0 ? Double.POSITIVE_INFINITY : blockWidth / Math.abs(lineY);
+
+        // The line crosses exactly this many edges, which also keeps rounding from walking it past the end
+        for (int steps = Math.abs(endI - i) + Math.abs(endJ - j); ; steps--) {
+            hitI = i;
+            hitJ = j;
+
+            if (!world.inBounds(i, j))
+                return OFF_MAP;
+            if (world.isSolid(i, j))
+                return SOLID;
+            if (steps == 0)
+                return CLEAR;
+
+            if (nextX < nextY) {
+                nextX += deltaX;
+                i += stepI;
+            } else {
+                nextY += deltaY;
+                j += stepJ;
+            }
+        }
+    }
+
+    /**
+     * Draws a bullet at a given position on the screen, such as a position from a Snapshot.
+     * @param g The Graphics Object
+     * @param x The x-coordinate on the screen
+     * @param y The y-coordinate on the screen
+     */
+    public static void paint(Graphics g, int x, int y) {
+        g.setColor(Color.RED);
+        g.fillRoundRect(x, y, WIDTH, WIDTH, RADIUS, RADIUS);
+    }
+}
@@ -1,10 +0,0 @@
-/**
- * The background for the game map
- * @author Gene Yang
- * @version May 24, 2023
- */
-public class CaveBackground extends TransparentBlock {
-    public CaveBackground(int x, int y, int w){
-        super(x, y, w, "src/imgs/caveBackground.png");
-    }
-}
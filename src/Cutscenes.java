@@ -0,0 +1,152 @@
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The cutscene images, decoded on a background thread before they're needed and dropped once they've been shown.
+ * Each one is decoded into an image the screen can draw directly, already scaled to the size it's shown at and
+ * flattened onto the black cutscene background, so a cutscene frame is a single drawImage with no blending.
+ * The first cutscene (the instructions) starts decoding straight away, and each later one once the player is within
+ * one segment (depthPerCutScene rows) of the row that starts it.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class Cutscenes {
+    // Folder on the classpath that holds the images
+    private static final String IMG_DIR = "/imgs/";
+
+    private ArrayList<String> names;
+    private int depthPerCutScene;
+
+    // The size the images are drawn at
+    private int width;
+    private int height;
+
+    // Decoding (or decoded) images, by cutscene number. Null if it isn't needed yet or has been played already.
+    private ArrayList<Future<BufferedImage>> images;
+    private ExecutorService worker;
+
+    // Number of images decoded so far
+    private volatile int decodedCount;
+
+    /**
+     * Constructor. Starts decoding the first cutscene.
+     * @param names The image names of the cutscenes, in order
+     * @param depthPerCutScene The number of rows between cutscenes
+     * @param width The width the images are drawn at
+     * @param height The height the images are drawn at
+     */
+    public Cutscenes(ArrayList<String> names, int depthPerCutScene, int width, int height) {
+        this.names = names;
+        this.depthPerCutScene = depthPerCutScene;
+        this.width = width;
+        this.height = height;
+
+        this.images = new ArrayList<Future<BufferedImage>>();
+        for (int k = 0; k < names.size(); k++)
+            images.add(null);
+        this.worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "cutscene-decoder");
+            t.setDaemon(true);
+            return t;
+        });
+
+        preload(0);
+    }
+
+    /** Getters **/
+    public int size() { return this.names.size(); }
+    public int getDecodedCount() { return this.decodedCount; }
+
+    /**
+     * Starts decoding the next cutscene if the player is getting close to it, and lets go of the ones already played.
+     * @param playerRow The row the player is on
+     * @param curCutScene The number of the cutscene that's playing or plays next
+     * @param inCutScene Whether a cutscene is playing
+     */
+    public void update(int playerRow, int curCutScene, boolean inCutScene) {
+        for (int k = 0; k < Math.min(curCutScene, images.size()); k++)
+            images.set(k, null);
+
+        // The row that starts the next cutscene, once this one is done
+        int next = inCutScene ? curCutScene + 1 : curCutScene;
+        if (next < images.size() && playerRow >= (next - 1) * depthPerCutScene)
+            preload(next);
+
+        if (inCutScene)
+            preload(curCutScene);
+    }
+
+    /**
+     * Starts decoding a cutscene, unless it's decoding or decoded already, or decoding has been stopped.
+     * @param k The cutscene number
+     */
+    public void preload(int k) {
+        if (k < 0 || k >= images.size() || images.get(k) != null || worker.isShutdown())
+            return;
+
+        String name = names.get(k);
+        images.set(k, worker.submit(() -> decode(name)));
+    }
+
+    /**
+     * Gets a cutscene's image if it's ready.
+     * @param k The cutscene number
+     * @return The image, or null if it's still decoding (or wasn't asked for)
+     */
+    public BufferedImage get(int k) {
+        Future<BufferedImage> image = images.get(k);
+        if (image == null || !image.isDone())
+            return null;
+
+        try {
+            return image.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Couldn't load cutscene " + names.get(k), e.getCause());
+        }
+    }
+
+    /**
+     * Stops decoding and lets the decoding thread end. Called once the game is over.
+     */
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    /**
+     * Decodes an image and scales it into an image like the screen's.
+     */
+    private BufferedImage decode(String name) {
+        BufferedImage source;
+        try (InputStream in = Cutscenes.class.getResourceAsStream(IMG_DIR + name)) {
+            if (in == null)
+                throw new IOException(IMG_DIR + name + " isn't on the classpath");
+            source = ImageIO.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        BufferedImage img = Textures.compatibleImage(width, height, Transparency.OPAQUE);
+        Graphics2D g = img.createGraphics();
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, width, height);
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(source, 0, 0, width, height, null);
+        g.dispose();
+
+        decodedCount++;
+        return img;
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * The IDs of every kind of decoration, along with their textures.
+ * The World keeps the decorations of each chunk in a DecorChunk next to its tile IDs, so they're streamed with the map.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class Decor {
+    // Decor IDs
+    public static final byte NONE = 0;
+    public static final byte STALAGMITE = 1;
+    public static final byte STALACTITE = 2;
+    public static final byte BAT = 3;
+    public static final byte FLOWER = 4;
+    public static final byte VINE = 5;
+
+    // Number of decor types, including NONE
+    public static final int COUNT = 6;
+
+    // Texture name by decor ID, as used by Textures
+    public static final String[] TEXTURE = new String[COUNT];
+
+    // Atlas texture numbers by decor ID, filled in the first time a decoration is painted
+    private static int[] textures;
+
+    static {
+        TEXTURE[STALAGMITE] = "stalagmite";
+        TEXTURE[STALACTITE] = "stalactite";
+        TEXTURE[BAT] = "bat";
+        TEXTURE[FLOWER] = "flower";
+        TEXTURE[VINE] = "vine";
+    }
+
+    /**
+     * Gets the atlas texture number of a decor type.
+     * @param id The decor ID, not NONE
+     * @return The texture number, for Textures.draw() or a SpriteBatch
+     */
+    public static int texture(byte id) {
+        if (textures == null) {
+            int[] loaded = new int[COUNT];
+            for (int i = 1; i < COUNT; i++)
+                loaded[i] = Textures.number(TEXTURE[i]);
+
+            textures = loaded;
+        }
+
+        return textures[id];
+    }
+}
@@ -0,0 +1,141 @@
+import java.util.Arrays;
+
+/**
+ * The decorations in one chunk, stored sparsely: the positions that have one, sorted, and the decor ID at each.
+ * A position is packed the same way as an index into the chunk's tile array, (row in chunk) * CHUNK_SIZE + (column in
+ * chunk), so sorting by position sorts by row, and the decorations on a range of rows are one run of the arrays.
+ * Most tiles have no decoration, so a chunk costs 3 bytes per decoration instead of a byte per tile, and a chunk with
+ * none at all is just EMPTY.
+ *
+ * A DecorChunk never changes once it's made; adding or removing a decoration makes a new one. They only change when a
+ * blast clears one, and it lets the renderer read a chunk on its own thread while the game loop swaps a new one in.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class DecorChunk {
+    // A chunk with no decorations
+    public static final DecorChunk EMPTY = new DecorChunk(new short[0], new byte[0]);
+
+    // Positions with a decoration, in order, and the decor ID at each
+    private final short[] positions;
+    private final byte[] ids;
+
+    private DecorChunk(short[] positions, byte[] ids) {
+        this.positions = positions;
+        this.ids = ids;
+    }
+
+    /**
+     * Packs the decorations of a chunk.
+     * @param decor A decor ID (or Decor.NONE) for every tile in the chunk, laid out like the tile IDs
+     * @return The decorations, or EMPTY if there are none
+     */
+    public static DecorChunk of(byte[] decor) {
+        int n = 0;
+        for (byte d : decor)
+            if (d != Decor.NONE)
+                n++;
+
+        if (n == 0)
+            return EMPTY;
+
+        short[] positions = new short[n];
+        byte[] ids = new byte[n];
+        int k = 0;
+        for (int p = 0; p < decor.length; p++) {
+            if (decor[p] != Decor.NONE) {
+                positions[k] = (short) p;
+                ids[k] = decor[p];
+                k++;
+            }
+        }
+
+        return new DecorChunk(positions, ids);
+    }
+
+    /**
+     * Unpacks the decorations into a decor ID for every tile, the way they're saved.
+     * @param decor Where to put them, laid out like the tile IDs. Everything without a decoration is set to Decor.NONE.
+     */
+    public void toArray(byte[] decor) {
+        Arrays.fill(decor, Decor.NONE);
+        for (int k = 0; k < positions.length; k++)
+            decor[positions[k]] = ids[k];
+    }
+
+    /** Getters **/
+    public int size() { return this.positions.length; }
+    public boolean isEmpty() { return this.positions.length == 0; }
+    public int getPosition(int k) { return this.positions[k]; }
+    public byte getId(int k) { return this.ids[k]; }
+
+    /**
+     * Gets the decoration at a position.
+     * @param position The position in the chunk
+     * @return The decor ID, or Decor.NONE
+     */
+    public byte get(int position) {
+        int k = Arrays.binarySearch(positions, (short) position);
+        return k >= 0 ? ids[k] : Decor.NONE;
+    }
+
+    /**
+     * Finds the first decoration at or after a position, for going through the decorations on a range of rows.
+     * @param position The position in the chunk
+     * @return Its number, from 0 to size() (if every decoration is before the position)
+     */
+    public int indexOf(int position) {
+        int k = Arrays.binarySearch(positions, (short) position);
+        return k >= 0 ? k : -k - 1;
+    }
+
+    /**
+     * Makes a copy with the decoration at a position changed.
+     * @param position The position in the chunk
+     * @param id The decor ID, or Decor.NONE to remove it
+     * @return The new chunk, or this one if nothing changed
+     */
+    public DecorChunk with(int position, byte id) {
+        int k = Arrays.binarySearch(positions, (short) position);
+
+        if (k >= 0) {
+            if (ids[k] == id)
+                return this;
+
+            // Change it
+            if (id != Decor.NONE) {
+                byte[] newIds = ids.clone();
+                newIds[k] = id;
+                return new DecorChunk(positions, newIds);
+            }
+
+            // Remove it
+            if (positions.length == 1)
+                return EMPTY;
+
+            short[] newPositions = new short[positions.length - 1];
+            byte[] newIds = new byte[ids.length - 1];
+            System.arraycopy(positions, 0, newPositions, 0, k);
+            System.arraycopy(positions, k + 1, newPositions, k, positions.length - k - 1);
+            System.arraycopy(ids, 0, newIds, 0, k);
+            System.arraycopy(ids, k + 1, newIds, k, ids.length - k - 1);
+            return new DecorChunk(newPositions, newIds);
+        }
+
+        if (id == Decor.NONE)
+            return this;
+
+        // Add it where it goes in the order
+        k = -k - 1;
+        short[] newPositions = new short[positions.length + 1];
+        byte[] newIds = new byte[ids.length + 1];
+        System.arraycopy(positions, 0, newPositions, 0, k);
+        System.arraycopy(positions, k, newPositions, k + 1, positions.length - k);
+        System.arraycopy(ids, 0, newIds, 0, k);
+        System.arraycopy(ids, k, newIds, k + 1, ids.length - k);
+        newPositions[k] = (short) position;
+        newIds[k] = id;
+        return new DecorChunk(newPositions, newIds);
+    }
+}
@@ -1,10 +0,0 @@
-/**
- * A solid Block made to resemble dirt.
- * @author Gene Yang
- * @version May 24, 2023
- */
-public class Dirt extends SolidBlock {
-    public Dirt(int x, int y, int w){
-        super(x, y, w, "src/imgs/dirt.png");
-    }
-}
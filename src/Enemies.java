@@ -0,0 +1,170 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Every enemy in the game, stored as arrays of positions instead of one object per enemy.
+ * An enemy chases the player if the player is within CHASE_DIST of it.
+ * Large groups of chasing enemies are moved in parallel, in batches that are reused every tick.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class Enemies {
+    // The enemy will chase the player if the player is within this much of it.
+    public static final int CHASE_DIST = 300;
+    private static final long CHASE_DIST_SQUARED = (long) CHASE_DIST * CHASE_DIST;
+
+    // Below this many chasing enemies, moving them on one thread is faster than splitting the work.
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    // Number of batches the chasing enemies are split into when moving in parallel
+    private static final int BATCHES = 4 * ForkJoinPool.getCommonPoolParallelism();
+
+    // Width of an enemy, and how far it moves each tick
+    private final int w;
+    private final double speed = 2;
+
+    // Positions, and the positions at the start of the current tick (for interpolation)
+    private int count;
+    public int[] x;
+    public int[] y;
+    public int[] prevX;
+    public int[] prevY;
+
+    // The enemies to move this tick and the player's position, read by the batches
+    private IntList moving;
+    private int targetX;
+    private int targetY;
+
+    // Reusable parallel work, so a tick doesn't allocate anything
+    private final Batch[] batches;
+    private final RecursiveAction allBatches;
+
+    // Enemy texture, as an atlas texture number once it's been looked up (so the game logic never needs the atlas)
+    private int texture = -1;
+
+    /**
+     * Constructor
+     * @param w The width of an enemy
+     * @param capacity The number of enemies there's room for
+     */
+    public Enemies(int w, int capacity) {
+        this.w = w;
+        this.count = 0;
+
+        this.x = new int[capacity];
+        this.y = new int[capacity];
+        this.prevX = new int[capacity];
+        this.prevY = new int[capacity];
+
+        this.batches = new Batch[BATCHES];
+        for (int b = 0; b < BATCHES; b++)
+            batches[b] = new Batch();
+
+        this.allBatches = new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(batches);
+            }
+        };
+    }
+
+    /** Getters **/
+    public int size() { return this.count; }
+    public int getCapacity() { return this.x.length; }
+    public int getW() { return this.w; }
+    public int getTexture() {
+        if (texture < 0)
+            texture = Textures.number("enemy");
+        return texture;
+    }
+
+    /**
+     * Adds an enemy.
+     * @param x The x-coordinate of the enemy
+     * @param y The y-coordinate of the enemy
+     */
+    public void add(int x, int y) {
+        if (count == this.x.length)
+            throw new IllegalStateException("No room for more than " + count + " enemies");
+
+        this.x[count] = x;
+        this.y[count] = y;
+        this.prevX[count] = x;
+        this.prevY[count] = y;
+        count++;
+    }
+
+    /**
+     * Removes an enemy by moving the last enemy into its place.
+     * @param index The index of the enemy
+     */
+    public void remove(int index) {
+        count--;
+        this.x[index] = this.x[count];
+        this.y[index] = this.y[count];
+        this.prevX[index] = this.prevX[count];
+        this.prevY[index] = this.prevY[count];
+    }
+
+    /**
+     * Moves some of the enemies towards the player, if the player is within their chase range.
+     * @param indices The enemies to move
+     * @param playerX The x-coordinate of the player
+     * @param playerY The y-coordinate of the player
+     */
+    public void chase(IntList indices, int playerX, int playerY) {
+        this.moving = indices;
+        this.targetX = playerX;
+        this.targetY = playerY;
+
+        if (indices.size() < PARALLEL_THRESHOLD) {
+            chase(0, indices.size());
+            return;
+        }
+
+        // Split the enemies evenly between the batches
+        for (int b = 0; b < BATCHES; b++) {
+            batches[b].from = (int) ((long) indices.size() * b / BATCHES);
+            batches[b].to = (int) ((long) indices.size() * (b + 1) / BATCHES);
+            batches[b].reinitialize();
+        }
+        allBatches.reinitialize();
+        ForkJoinPool.commonPool().invoke(allBatches);
+    }
+
+    /**
+     * Moves the enemies from moving[from] up to moving[to] towards the player.
+     * Uses the squared distance for the range check and a normalized vector for the direction, so there's no trig.
+     */
+    private void chase(int from, int to) {
+        for (int k = from; k < to; k++) {
+            int e = moving.get(k);
+            int dx = targetX - x[e];
+            int dy = targetY - y[e];
+            long distSquared = (long) dx * dx + (long) dy * dy;
+
+            // Chase a player within range.
+            if (distSquared < CHASE_DIST_SQUARED && distSquared > 0) {
+                double scale = speed / Math.sqrt(distSquared);
+                x[e] += (int) (dx * scale);
+                y[e] += (int) (dy * scale);
+            }
+        }
+    }
+
+    /**
+     * A range of the enemies being moved, handled by one thread.
+     */
+    @SuppressWarnings("serial") // Never serialized
+    private class Batch extends RecursiveAction {
+        private int from;
+        private int to;
+
+        @Override
+        protected void compute() {
+            chase(from, to);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+import java.util.Arrays;
+
+/**
+ * A uniform grid over the map that keeps track of which enemies are in which cell,
+ * so finding the enemies near a point only looks at a few cells instead of every enemy.
+ * Each cell is a linked list of enemy indices, so moving an enemy between cells doesn't allocate anything.
+ * The grid only has to be as high as the part of the map that's loaded: rows wrap around, so a cell holds the enemies
+ * from every row that maps to it, and queries check the actual positions anyway.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class EnemyGrid {
+    private Enemies enemies;
+
+    // Size of a cell in pixels, and of the grid in cells
+    private int cellSize;
+    private int columns;
+    private int rows;
+
+    // First enemy in each cell (-1 if empty), and the enemies before and after each enemy in its cell
+    private int[] head;
+    private int[] next;
+    private int[] prev;
+
+    // The cell each enemy is currently in
+    private int[] cellOf;
+
+    // Width of an enemy, so that queries can catch enemies that poke into the area from a neighbouring cell
+    private int enemyWidth;
+
+    /**
+     * Constructor
+     * @param enemies The enemies. Enemies must only be added and removed through the grid afterwards.
+     * @param width The width of the map, in pixels
+     * @param height The height of the loaded part of the map, in pixels
+     * @param cellSize The size of a grid cell, in pixels
+     */
+    public EnemyGrid(Enemies enemies, int width, int height, int cellSize) {
+        this.enemies = enemies;
+        this.cellSize = cellSize;
+        this.columns = (width + cellSize - 1) / cellSize;
+        this.rows = (height + cellSize - 1) / cellSize;
+
+        this.head = new int[columns * rows];
+        Arrays.fill(head, -1);
+
+        this.next = new int[enemies.getCapacity()];
+        this.prev = new int[enemies.getCapacity()];
+        this.cellOf = new int[enemies.getCapacity()];
+
+        this.enemyWidth = enemies.getW();
+
+        for (int k = 0; k < enemies.size(); k++) {
+            cellOf[k] = cellAt(enemies.x[k], enemies.y[k]);
+            link(k, cellOf[k]);
+        }
+    }
+
+    /** Getters **/
+    public Enemies getEnemies() { return this.enemies; }
+    public int size() { return this.enemies.size(); }
+    public int getCapacity() { return this.enemies.getCapacity(); }
+
+    /**
+     * Adds an enemy, and files it in its cell.
+     * @param x The x-coordinate of the enemy
+     * @param y The y-coordinate of the enemy
+     */
+    public void add(int x, int y) {
+        enemies.add(x, y);
+
+        int index = enemies.size() - 1;
+        cellOf[index] = cellAt(x, y);
+        link(index, cellOf[index]);
+    }
+
+    /**
+     * Removes an enemy. Like Enemies.remove, the last enemy takes its index.
+     * @param index The index of the enemy
+     */
+    public void remove(int index) {
+        int last = enemies.size() - 1;
+
+        unlink(index, cellOf[index]);
+        if (last != index) {
+            unlink(last, cellOf[last]);
+            link(index, cellOf[last]);
+            cellOf[index] = cellOf[last];
+        }
+
+        enemies.remove(index);
+    }
+
+    /**
+     * Moves an enemy to the right cell after its position has changed.
+     * @param index The index of the enemy
+     */
+    public void update(int index) {
+        int cell = cellAt(enemies.x[index], enemies.y[index]);
+        if (cell == cellOf[index])
+            return;
+
+        unlink(index, cellOf[index]);
+        link(index, cell);
+        cellOf[index] = cell;
+    }
+
+    /**
+     * Finds every enemy whose box overlaps a rectangle.
+     * @param minX The left of the rectangle, in pixels
+     * @param minY The top of the rectangle, in pixels
+     * @param maxX The right of the rectangle, in pixels
+     * @param maxY The bottom of the rectangle, in pixels
+     * @param out The list to add the enemy indices to
+     */
+    public void query(int minX, int minY, int maxX, int maxY, IntList out) {
+        // Enemies are filed under their top-left corner, so look a little further up and left.
+        int minCol = clamp(Math.floorDiv(minX - enemyWidth, cellSize), columns);
+        int maxCol = clamp(Math.floorDiv(maxX, cellSize), columns);
+        int minRow = Math.floorDiv(minY - enemyWidth, cellSize);
+        int maxRow = Math.min(Math.floorDiv(maxY, cellSize), minRow + rows - 1);
+
+        int[] xs = enemies.x;
+        int[] ys = enemies.y;
+
+        for (int r = minRow; r <= maxRow; r++) {
+            int row = Math.floorMod(r, rows);
+            for (int c = minCol; c <= maxCol; c++) {
+                for (int k = head[row * columns + c]; k != -1; k = next[k]) {
+                    if (xs[k] + enemyWidth > minX && xs[k] < maxX && ys[k] + enemyWidth > minY && ys[k] < maxY)
+                        out.add(k);
+                }
+            }
+        }
+    }
+
+    // The cell a point falls in. Points off the sides go in the nearest edge cell, and rows wrap around.
+    private int cellAt(int x, int y) {
+        return Math.floorMod(Math.floorDiv(y, cellSize), rows) * columns + clamp(Math.floorDiv(x, cellSize), columns);
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+
+    // Adds an enemy to the front of a cell's list
+    private void link(int index, int cell) {
+        prev[index] = -1;
+        next[index] = head[cell];
+        if (head[cell] != -1)
+            prev[head[cell]] = index;
+        head[cell] = index;
+    }
+
+    // Takes an enemy out of a cell's list
+    private void unlink(int index, int cell) {
+        if (prev[index] != -1)
+            next[prev[index]] = next[index];
+        else
+            head[cell] = next[index];
+
+        if (next[index] != -1)
+            prev[next[index]] = prev[index];
+    }
+}
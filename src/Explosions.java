@@ -0,0 +1,133 @@
+/**
+ * Blows holes in the map. Explosions are queued up during a tick (by bullets and beams) and then all applied at once.
+ *
+ * Each blast is a circle of tiles, worked out once per radius as a stencil: for every row of the circle, how far it
+ * reaches left and right of the middle. Applying one is then just clearing those spans straight in the chunk arrays,
+ * with no square roots or per-tile bookkeeping. Once every queued blast is applied, the World is told which rectangle
+ * each one changed (see World.markChanged), which is how the renderer knows to redraw those chunks and how the liquids
+ * around the holes are woken up.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class Explosions {
+    // Biggest blast radius there can be, in tiles
+    public static final int MAX_RADIUS = 64;
+
+    // Stencils, made the first time a radius is used. stencils[r][dj + r] is how far row dj of the circle reaches.
+    private final int[][] stencils = new int[MAX_RADIUS + 1][];
+
+    // Blasts waiting to be applied
+    private IntList queuedI = new IntList();
+    private IntList queuedJ = new IntList();
+    private IntList queuedRadius = new IntList();
+
+    // Number of tiles cleared so far
+    private long clearedCount;
+
+    /** Getters **/
+    public int size() { return queuedI.size(); }
+    public long getClearedCount() { return this.clearedCount; }
+
+    /**
+     * Queues up a blast, to be applied with the rest of this tick's.
+     * @param i The column of the middle of the blast
+     * @param j The row of the middle of the blast
+     * @param radius How far the blast reaches, in tiles
+     */
+    public void add(int i, int j, int radius) {
+        if (radius < 0 || radius > MAX_RADIUS)
+            throw new IllegalArgumentException("Blast radius has to be from 0 to " + MAX_RADIUS + ", not " + radius);
+
+        queuedI.add(i);
+        queuedJ.add(j);
+        queuedRadius.add(radius);
+    }
+
+    /**
+     * Applies every queued blast: clears each tile in them to cave (liquids and immovable tiles are left alone), along
+     * with any decoration on it, then tells the World what changed.
+     * @param world The game map
+     */
+    public void apply(World world) {
+        int count = queuedI.size();
+
+        for (int k = 0; k < count; k++)
+            blast(world, queuedI.get(k), queuedJ.get(k), queuedRadius.get(k));
+
+        // Only tell anyone once all of the tiles are in, so a chunk hit by several blasts is redrawn once
+        for (int k = 0; k < count; k++) {
+            int r = queuedRadius.get(k);
+            world.markChanged(queuedI.get(k) - r, queuedJ.get(k) - r, queuedI.get(k) + r, queuedJ.get(k) + r);
+        }
+
+        queuedI.clear();
+        queuedJ.clear();
+        queuedRadius.clear();
+    }
+
+    /**
+     * Clears the tiles of one blast, straight in the chunk arrays.
+     */
+    private void blast(World world, int curI, int curJ, int radius) {
+        int[] stencil = stencil(radius);
+        int chunkMask = World.CHUNK_SIZE - 1;
+
+        for (int dj = -radius; dj <= radius; dj++) {
+            int j = curJ + dj;
+            if (j < 0 || j >= world.getHeight() || !world.isLoaded(j / World.CHUNK_SIZE))
+                continue;
+
+            int minI = Math.max(0, curI - stencil[dj + radius]);
+            int maxI = Math.min(world.getWidth() - 1, curI + stencil[dj + radius]);
+            int rowStart = (j & chunkMask) * World.CHUNK_SIZE;
+
+            for (int i = minI; i <= maxI; i++) {
+                byte[] tiles = world.getChunkTiles(i / World.CHUNK_SIZE, j / World.CHUNK_SIZE);
+                DecorChunk decor = world.getChunkDecor(i / World.CHUNK_SIZE, j / World.CHUNK_SIZE);
+                DecorChunk before = decor;
+
+                // The rest of the span that's in this chunk
+                int end = Math.min(maxI, i | chunkMask);
+                for (; i <= end; i++) {
+                    int index = rowStart + (i & chunkMask);
+                    byte tile = tiles[index];
+                    boolean decorated = !decor.isEmpty() && decor.get(index) != Decor.NONE;
+                    if (Tiles.LIQUID[tile] || Tiles.IMMOVABLE[tile] || tile == Tiles.CAVE && !decorated)
+                        continue;
+
+                    tiles[index] = Tiles.CAVE;
+                    if (decorated)
+                        decor = decor.with(index, Decor.NONE);
+                    clearedCount++;
+                }
+                i = end;
+
+                if (decor != before)
+                    world.setChunkDecor(end / World.CHUNK_SIZE, j / World.CHUNK_SIZE, decor);
+            }
+        }
+    }
+
+    /**
+     * Gets the stencil for a radius, making it if it's the first time.
+     * A tile is in the blast if its squared distance from the middle is at most radius * radius + radius, which is
+     * everything closer than radius + 0.5 (so a radius of 2 is the mining gun's old blast, exactly).
+     */
+    private int[] stencil(int radius) {
+        if (stencils[radius] != null)
+            return stencils[radius];
+
+        int[] stencil = new int[2 * radius + 1];
+        int reach = radius * radius + radius;
+        for (int dj = -radius; dj <= radius; dj++) {
+            int di = 0;
+            while ((di + 1) * (di + 1) + dj * dj <= reach)
+                di++;
+            stencil[dj + radius] = di;
+        }
+
+        stencils[radius] = stencil;
+        return stencil;
+    }
+}
@@ -0,0 +1,155 @@
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Draws frames on its own thread, straight into a BufferStrategy, instead of asking Swing to repaint a panel.
+ * Swing paints into its own back buffer and then copies that to the window whenever the Swing thread gets round to it,
+ * so the frame rate depends on a Timer and on whatever else the Swing thread is doing. Here a finished frame is flipped
+ * (or copied, if the screen can't flip) straight onto the window, at a fixed frame cap or as fast as it can go, and
+ * the frames actually shown are counted.
+ *
+ * The frame itself is drawn by whoever made the canvas, the same way it would be in paintComponent.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class FrameCanvas extends Canvas implements Runnable {
+    private static final long serialVersionUID = 1L;
+
+    // If drawing falls this many frames behind the cap, it stops trying to catch up.
+    private final int MAX_CATCH_UP_FRAMES = 2;
+
+    // Number of buffers in the strategy, counting the one on the screen
+    private int buffers;
+
+    // Most frames to show each second, or 0 for as many as possible
+    private volatile int frameCap;
+
+    // Draws a frame
+    private Consumer<Graphics> painter;
+
+    // Times showing each frame
+    private Profiler profiler = new Profiler();
+
+    private BufferStrategy strategy;
+    private Thread thread;
+    private volatile boolean running;
+
+    // Frames shown in the current second, and the total from the last full second
+    private int frameCount;
+    private long frameCountStart;
+    private volatile int framesPerSecond;
+
+    /**
+     * Constructor
+     * @param buffers The number of buffers to flip between (2 or 3)
+     * @param frameCap The most frames to show each second, or 0 for as many as possible
+     * @param painter Draws a frame
+     */
+    public FrameCanvas(int buffers, int frameCap, Consumer<Graphics> painter) {
+        this.buffers = buffers;
+        this.frameCap = frameCap;
+        this.painter = painter;
+
+        // Every frame is drawn by the render thread, so the window system's repaints are ignored.
+        setIgnoreRepaint(true);
+        setBackground(Color.BLACK);
+    }
+
+    /** Getters **/
+    public int getFrameCap() { return this.frameCap; }
+    public int getFramesPerSecond() { return this.framesPerSecond; }
+
+    /** Setters **/
+    public void setFrameCap(int frameCap) { this.frameCap = frameCap; }
+    public void setProfiler(Profiler profiler) { this.profiler = profiler; }
+
+    /**
+     * Makes the buffers and starts drawing on a new thread. The canvas has to be in a window that's been shown.
+     */
+    public void start() {
+        createBufferStrategy(buffers);
+        strategy = getBufferStrategy();
+        running = true;
+
+        thread = new Thread(this, "Render loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops drawing and waits for the current frame to finish.
+     */
+    public void stop() {
+        if (thread == null)
+            return;
+
+        running = false;
+
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        long nextFrame = System.nanoTime();
+        frameCountStart = nextFrame;
+
+        while (running) {
+            drawFrame();
+
+            // Frame rate, counting the frames that made it to the screen
+            long now = System.nanoTime();
+            frameCount++;
+            if (now - frameCountStart >= 1_000_000_000L) {
+                framesPerSecond = frameCount;
+                frameCount = 0;
+                frameCountStart = now;
+            }
+
+            // Wait until the next frame is due, unless there's no cap
+            int cap = frameCap;
+            if (cap <= 0) {
+                nextFrame = now;
+                continue;
+            }
+
+            long frameNanos = 1_000_000_000L / cap;
+            nextFrame += frameNanos;
+            if (now - nextFrame > MAX_CATCH_UP_FRAMES * frameNanos)
+                nextFrame = now;
+            LockSupport.parkNanos(nextFrame - System.nanoTime());
+        }
+
+        strategy.dispose();
+    }
+
+    /**
+     * Draws a frame into the next buffer and shows it, starting again if the buffers were lost on the way
+     * (when the window is resized or the screen mode changes, for example).
+     */
+    private void drawFrame() {
+        do {
+            do {
+                Graphics g = strategy.getDrawGraphics();
+                try {
+                    painter.accept(g);
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+
+            long t = profiler.start();
+            strategy.show();
+
+            // Some window systems hold on to drawing until they're told to flush it
+            Toolkit.getDefaultToolkit().sync();
+            profiler.end(Profiler.PRESENT, t);
+        } while (strategy.contentsLost());
+    }
+}
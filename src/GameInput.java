@@ -0,0 +1,39 @@
+/**
+ * A single player input, queued up by the Swing listeners and applied by the Simulation on its next tick.
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class GameInput {
+    // Input types
+    public static final int MOVE_UP = 0;
+    public static final int MOVE_LEFT = 1;
+    public static final int MOVE_RIGHT = 2;
+    public static final int SHOOT = 3; // Mouse click, aimed at (x, y) on the screen
+    public static final int CONTINUE = 4; // The continue button on a cutscene
+    public static final int TRIGGER = 5; // Mouse pressed or released, or dragged while pressed, aimed at (x, y)
+    public static final int FULL_AUTO = 6; // Full-auto mode turned on (pressed) or off
+    public static final int BEAM = 7; // Right click, aimed at (x, y) on the screen
+
+    public final int type;
+
+    // Whether a movement key or the trigger was pressed or released
+    public final boolean pressed;
+
+    // Screen coordinates of a click
+    public final int x;
+    public final int y;
+
+    /**
+     * Constructor
+     * @param type The input type
+     * @param pressed Whether a movement key or the trigger was pressed (true) or released (false)
+     * @param x The x-coordinate of a click on the screen
+     * @param y The y-coordinate of a click on the screen
+     */
+    public GameInput(int type, boolean pressed, int x, int y) {
+        this.type = type;
+        this.pressed = pressed;
+        this.x = x;
+        this.y = y;
+    }
+}
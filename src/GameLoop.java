@@ -0,0 +1,107 @@
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the Simulation on its own thread at a fixed number of ticks per second,
+ * no matter how long the Swing thread takes to paint a frame.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class GameLoop implements Runnable {
+    // If the loop falls this many ticks behind, it stops trying to catch up.
+    private final int MAX_CATCH_UP_TICKS = 10;
+
+    private Simulation sim;
+    private long tickNanos;
+    private Thread thread;
+    private volatile boolean running;
+
+    // Ticks counted in the current second, and the total from the last full second
+    private int tickCount;
+    private long tickCountStart;
+    private volatile int ticksPerSecond;
+
+    /**
+     * Constructor
+     * @param sim The simulation to run
+     * @param ticksPerSecond The number of ticks to run each second
+     */
+    public GameLoop(Simulation sim, int ticksPerSecond) {
+        this.sim = sim;
+        this.tickNanos = 1_000_000_000L / ticksPerSecond;
+    }
+
+    /** Getters **/
+    public long getTickNanos() { return this.tickNanos; }
+    public int getTicksPerSecond() { return this.ticksPerSecond; }
+
+    /**
+     * Starts ticking on a new thread.
+     */
+    public void start() {
+        running = true;
+
+        thread = new Thread(this, "Game loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops ticking and waits for the current tick to finish.
+     */
+    public void stop() {
+        running = false;
+
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        long nextTick = System.nanoTime();
+        tickCountStart = nextTick;
+
+        while (running) {
+            long now = System.nanoTime();
+
+            // Skip ahead instead of running a burst of ticks after a long stall.
+            if (now - nextTick > MAX_CATCH_UP_TICKS * tickNanos)
+                nextTick = now;
+
+            // Run every tick that's due, and stop at the end of a replay
+            while (now - nextTick >= 0 && running) {
+                if (sim.isReplayDone()) {
+                    running = false;
+                    break;
+                }
+
+                sim.tick();
+                nextTick += tickNanos;
+                tickCount++;
+            }
+
+            // Tick rate
+            if (now - tickCountStart >= 1_000_000_000L) {
+                ticksPerSecond = tickCount;
+                tickCount = 0;
+                tickCountStart = now;
+            }
+
+            // Sleep until the next tick is due
+            LockSupport.parkNanos(nextTick - System.nanoTime());
+        }
+    }
+
+    /**
+     * How far the current time is between the latest tick and the next one, for interpolation.
+     * @param snapshot The latest snapshot
+     * @return A number from 0 to 1
+     */
+    public double interpolation(Snapshot snapshot) {
+        double alpha = (double) (System.nanoTime() - snapshot.time) / tickNanos;
+        return Math.max(0.0, Math.min(1.0, alpha));
+    }
+}
@@ -0,0 +1,352 @@
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Runs the game logic with no window, for profiling and for running on a machine without a display.
+ * The map, the enemies and a scripted player are all made from one seed, and the simulation is ticked as fast as it
+ * can go instead of at the game's tick rate. It runs twice: once to warm up and once to time, and both runs have to end
+ * in exactly the same state. The map is streamed around the player like in the game, so the lab can be as deep as you like.
+ *
+ * It can also record the scripted session to a file, or play back a recording from here or from the game (see
+ * Recording). A replay draws every tick offscreen too, so the frame phases get timed along with the tick phases.
+ * Usage: Headless [seed] [ticks] [liquid threads] [lab depth]
+ *        Headless record [file] [seed] [ticks] [liquid threads] [lab depth]
+ *        Headless replay [file]
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class Headless {
+    // Same as the game
+    private static final int SCREEN_WIDTH = 700;
+    private static final int SCREEN_HEIGHT = 600;
+    private static final int BLOCK_WIDTH = 40;
+    private static final int MAP_WIDTH = 75;
+    private static final int LAB_DEPTH = 500;
+    private static final int MAX_ENEMIES = 256;
+    private static final int NUM_CUTSCENES = 6;
+
+    // How often the scripted player changes direction and shoots, in ticks
+    private static final int MOVE_INTERVAL = 30;
+    private static final int SHOOT_INTERVAL = 50;
+
+    // Every so often it holds down the full-auto mining gun for a burst, in ticks
+    private static final int BURST_INTERVAL = 1000;
+    private static final int BURST_LENGTH = 30;
+
+    /**
+     * Main method
+     * @param args The seed, the number of ticks, the number of liquid threads (0 for the normal liquid simulation),
+     *             and the depth of the lab in blocks. Or "record" and a file followed by the same, or "replay" and
+     *             a file.
+     */
+    public static void main(String[] args) {
+        if (args.length > 1 && args[0].equals("record")) {
+            record(Paths.get(args[1]), Arrays.copyOfRange(args, 2, args.length));
+            return;
+        }
+        if (args.length > 1 && args[0].equals("replay")) {
+            replay(Paths.get(args[1]));
+            return;
+        }
+
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 2023;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        int liquidThreads = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        int labDepth = args.length > 3 ? Integer.parseInt(args[3]) : LAB_DEPTH;
+
+        System.out.println("Seed " + seed + ", " + ticks + " ticks, " + liquidThreads + " liquid thread(s), lab at row " + labDepth);
+
+        long warmUp = run(seed, ticks, liquidThreads, labDepth, false);
+        long timed = run(seed, ticks, liquidThreads, labDepth, true);
+
+        System.out.printf("State %016x  %s%n", timed, timed == warmUp ? "same as the first run" : "DIFFERENT FROM THE FIRST RUN");
+    }
+
+    /**
+     * Builds the game from a seed and ticks it.
+     * @param report Whether to print the tick rate, the allocation rate, the startup time and the heap
+     * @return A hash of the state after the last tick
+     */
+    private static long run(long seed, int ticks, int liquidThreads, int labDepth, boolean report) {
+        long startup = System.nanoTime();
+        Session session = new Session(seed, liquidThreads, labDepth);
+        startup = System.nanoTime() - startup;
+
+        // The scripted player gets its own Random, so its inputs don't depend on how the map was made.
+        Random script = new Random(seed);
+
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+
+        for (int t = 0; t < ticks; t++) {
+            script(session.sim, script, t);
+            session.tick();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        if (report) {
+            System.out.printf("%.0f ticks/s, %.1f MB/s allocated (%d bytes/tick)%n",
+                    ticks / (elapsed / 1e9), allocated / (elapsed / 1e9) / 1e6, allocated / ticks);
+            session.report(startup);
+
+            // Where the tick time went
+            printSummaries(session.sim.getProfiler(), Profiler.TICK, Profiler.PUBLISH);
+        }
+
+        return session.finish();
+    }
+
+    /**
+     * Records the scripted session to a file, to be played back later.
+     * @param file Where to record to
+     * @param args The seed, the number of ticks, the number of liquid threads and the depth of the lab, all optional
+     */
+    private static void record(Path file, String[] args) {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 2023;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        int liquidThreads = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        int labDepth = args.length > 3 ? Integer.parseInt(args[3]) : LAB_DEPTH;
+
+        System.out.println("Recording seed " + seed + ", " + ticks + " ticks, " + liquidThreads
+                + " liquid thread(s), lab at row " + labDepth + " to " + file);
+
+        Session session = new Session(seed, liquidThreads, labDepth);
+        Recording.Recorder recorder = new Recording.Recorder(file, seed, labDepth, liquidThreads);
+        session.sim.setRecorder(recorder);
+
+        Random script = new Random(seed);
+        for (int t = 0; t < ticks; t++) {
+            script(session.sim, script, t);
+            session.tick();
+        }
+
+        recorder.close();
+        System.out.printf("State %016x%n", session.finish());
+    }
+
+    /**
+     * Plays back a recording twice, once to warm up and once to time, and draws every tick offscreen.
+     * @param file The recording
+     */
+    private static void replay(Path file) {
+        Recording recording = Recording.read(file);
+        System.out.println("Replaying " + file + ": seed " + recording.getSeed() + ", " + recording.getEndTick()
+                + " ticks, " + recording.size() + " inputs, " + recording.getLiquidThreads()
+                + " liquid thread(s), lab at row " + recording.getLabDepth());
+
+        // Everything drawn comes from the atlas, so load it before the timing starts
+        Textures.load();
+
+        long warmUp = replay(recording, false);
+        long timed = replay(recording, true);
+
+        System.out.printf("State %016x  %s%n", timed,
+                timed == warmUp ? "same as the first run" : "DIFFERENT FROM THE FIRST RUN");
+    }
+
+    /**
+     * Builds the game from a recording's seed and plays it back, drawing a frame after every tick.
+     * @param report Whether to print the tick and frame rates and where the time went
+     * @return A hash of the state after the last tick
+     */
+    private static long replay(Recording recording, boolean report) {
+        long startup = System.nanoTime();
+        Session session = new Session(recording.getSeed(), recording.getLiquidThreads(), recording.getLabDepth());
+        session.sim.setReplay(recording);
+
+        Renderer renderer = new Renderer(session.world, session.player, session.enemies, cutscenes(),
+                session.depthPerCutScene, SCREEN_WIDTH, SCREEN_HEIGHT);
+        renderer.setProfiler(session.sim.getProfiler());
+        BufferedImage frame = new BufferedImage(SCREEN_WIDTH, SCREEN_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = frame.createGraphics();
+        startup = System.nanoTime() - startup;
+
+        long start = System.nanoTime();
+        while (!session.sim.isReplayDone()) {
+            session.tick();
+            renderer.paint(g, session.sim.getSnapshot(), 1);
+        }
+        long elapsed = System.nanoTime() - start;
+        g.dispose();
+        renderer.getCutscenes().shutdown();
+
+        if (report) {
+            System.out.printf("%.0f ticks/s with a frame drawn every tick%n", recording.getEndTick() / (elapsed / 1e9));
+            session.report(startup);
+
+            // Where the tick time and the frame time went
+            printSummaries(session.sim.getProfiler(), Profiler.TICK, Profiler.PUBLISH);
+            printSummaries(session.sim.getProfiler(), Profiler.FRAME, Profiler.CUTSCENE);
+        }
+
+        return session.finish();
+    }
+
+    /**
+     * Queues the scripted player's inputs for a tick.
+     * @param sim The simulation
+     * @param script Where the scripted player's choices come from
+     * @param t The tick
+     */
+    private static void script(Simulation sim, Random script, int t) {
+        if (t % MOVE_INTERVAL == 0) {
+            boolean left = script.nextBoolean();
+            sim.addInput(new GameInput(GameInput.MOVE_LEFT, left, 0, 0));
+            sim.addInput(new GameInput(GameInput.MOVE_RIGHT, !left, 0, 0));
+            sim.addInput(new GameInput(GameInput.MOVE_UP, script.nextInt(4) == 0, 0, 0));
+        }
+
+        // Mostly shoot downwards, to dig through the map
+        if (t % SHOOT_INTERVAL == 0)
+            sim.addInput(new GameInput(GameInput.SHOOT, true, script.nextInt(SCREEN_WIDTH),
+                    SCREEN_HEIGHT / 2 + script.nextInt(SCREEN_HEIGHT / 2)));
+
+        if (t % BURST_INTERVAL == 0) {
+            sim.addInput(new GameInput(GameInput.FULL_AUTO, true, 0, 0));
+            sim.addInput(new GameInput(GameInput.TRIGGER, true, script.nextInt(SCREEN_WIDTH), SCREEN_HEIGHT));
+        }
+        if (t % BURST_INTERVAL == BURST_LENGTH) {
+            sim.addInput(new GameInput(GameInput.TRIGGER, false, 0, 0));
+            sim.addInput(new GameInput(GameInput.FULL_AUTO, false, 0, 0));
+        }
+
+        // Skip every cutscene straight away
+        if (sim.isInCutScene())
+            sim.addInput(new GameInput(GameInput.CONTINUE, true, 0, 0));
+    }
+
+    /**
+     * Prints the summaries of a range of phases.
+     */
+    private static void printSummaries(Profiler profiler, int firstPhase, int lastPhase) {
+        for (int phase = firstPhase; phase <= lastPhase; phase++)
+            System.out.println("    " + profiler.summary(phase));
+    }
+
+    /**
+     * Same cutscenes as the game.
+     */
+    private static ArrayList<String> cutscenes() {
+        ArrayList<String> cutscenes = new ArrayList<String>();
+        for (int k = 0; k < NUM_CUTSCENES; k++)
+            cutscenes.add("cutscene" + k + ".png");
+        return cutscenes;
+    }
+
+    /**
+     * The game built from a seed, saving into its own empty folder so that no run starts from another one's digging.
+     */
+    private static class Session {
+        private Player player;
+        private Enemies enemies;
+        private World world;
+        private RegionStore store;
+        private WorldStreamer streamer;
+        private Simulation sim;
+        private int depthPerCutScene;
+
+        // Deepest row the player has been on
+        private int deepest;
+
+        private Session(long seed, int liquidThreads, int labDepth) {
+            Simulation.checkLabDepth(labDepth, NUM_CUTSCENES);
+
+            player = new Player(MAP_WIDTH * BLOCK_WIDTH / 2, -100, 30);
+            enemies = new Enemies(BLOCK_WIDTH, MAX_ENEMIES);
+            world = new World(MAP_WIDTH, labDepth, BLOCK_WIDTH, WorldStreamer.WINDOW_ROWS);
+            store = RegionStore.temporary();
+            streamer = new WorldStreamer(world, new WorldGenerator(world, seed), store);
+            world.getLiquids().setThreads(liquidThreads);
+
+            depthPerCutScene = (labDepth - WorldGenerator.MAX_LAB_HEIGHT) / NUM_CUTSCENES;
+            sim = new Simulation(world, player, enemies, SCREEN_WIDTH, SCREEN_HEIGHT, NUM_CUTSCENES, depthPerCutScene);
+            sim.setStreamer(streamer);
+        }
+
+        private void tick() {
+            sim.tick();
+            deepest = Math.max(deepest, player.y / BLOCK_WIDTH);
+        }
+
+        /**
+         * Prints the startup time, how far the player got, how much of the map was made, saved and loaded, and the
+         * heap in use.
+         */
+        private void report(long startup) {
+            System.out.printf("Started in %.1f ms, reached row %d, %d chunk rows made, %d chunks saved, %d read back, %.1f MB heap in use%n",
+                    startup / 1e6, deepest, streamer.getGeneratedCount(), store.getWriteCount(), store.getReadCount(), usedHeap() / 1e6);
+        }
+
+        /**
+         * Stops the worker threads and deletes the saved chunks.
+         * @return A hash of the state after the last tick
+         */
+        private long finish() {
+            world.getLiquids().setThreads(0);
+            streamer.shutdown();
+            store.delete();
+            return hash(world, player, enemies, sim.getSnapshot());
+        }
+    }
+
+    /**
+     * Adds up the bytes allocated by every live thread so far, so liquid and enemy worker threads count too.
+     */
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds()))
+            total += Math.max(0, bytes);
+        return total;
+    }
+
+    /**
+     * Gets the heap in use after a garbage collection.
+     */
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Hashes everything that the simulation can change, on the part of the map that's loaded.
+     */
+    private static long hash(World world, Player player, Enemies enemies, Snapshot snap) {
+        long h = 17;
+
+        for (int j = world.getTopRow(); j < world.getBottomRow(); j++) {
+            for (int i = 0; i < world.getWidth(); i++) {
+                h = h * 31 + world.get(i, j);
+                h = h * 31 + world.getDecor(i, j);
+            }
+        }
+
+        h = h * 31 + player.x;
+        h = h * 31 + player.y;
+        h = h * 31 + Double.hashCode(player.getHealth());
+
+        for (int k = 0; k < enemies.size(); k++) {
+            h = h * 31 + enemies.x[k];
+            h = h * 31 + enemies.y[k];
+        }
+
+        for (int k = 0; k < snap.bulletCount; k++) {
+            h = h * 31 + snap.bulletX[k];
+            h = h * 31 + snap.bulletY[k];
+        }
+
+        h = h * 31 + snap.curCutScene;
+        return h;
+    }
+}
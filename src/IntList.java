@@ -0,0 +1,38 @@
+import java.util.Arrays;
+
+/**
+ * A growable list of ints, for hot loops where an ArrayList of Integers would box every value.
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class IntList {
+    private int[] values;
+    private int size;
+
+    public IntList() {
+        this.values = new int[16];
+        this.size = 0;
+    }
+
+    /** Getters **/
+    public int size() { return this.size; }
+    public int get(int k) { return this.values[k]; }
+
+    public void add(int value) {
+        if (size == values.length)
+            values = Arrays.copyOf(values, size * 2);
+        values[size++] = value;
+    }
+
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * Copies the values into a new array that's exactly the right size.
+     * @return The values, in order
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -1,10 +0,0 @@
-/**
- * One of the block options for the Lab graphics.
- * @author Gene Yang
- * @version May 24, 2023
- */
-public class LabBlock1 extends ImmovableBlock {
-    public LabBlock1(int x, int y, int w){
-        super(x, y, w, "src/imgs/lab_block_1.png");
-    }
-}
@@ -1,10 +0,0 @@
-/**
- * Another of the block options for the Lab graphics.
- * @author Gene Yang
- * @version May 24, 2023
- */
-public class LabBlock2 extends ImmovableBlock {
-    public LabBlock2(int x, int y, int w){
-        super(x, y, w, "src/imgs/lab_block_2.png");
-    }
-}
\ No newline at end of file
@@ -1,10 +0,0 @@
-/**
- * The last block option for the lab graphics.
- * @author Gene Yang
- * @version May 24, 2023
- */
-public class LabBlock3 extends ImmovableBlock {
-    public LabBlock3(int x, int y, int w){
-        super(x, y, w, "src/imgs/lab_block_3.png");
-    }
-}
\ No newline at end of file
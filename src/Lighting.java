@@ -0,0 +1,56 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * The darkness effect, drawn as one pre-rendered mask over the whole screen.
+ * Things get darker the further they are from the player (Manhattan distance), and since the camera always keeps
+ * the player in the middle of the screen, the mask never changes and can be drawn with a single drawImage.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class Lighting {
+    // Darkest the overlay gets, and how quickly it gets there
+    private static final int MAX_OPACITY = 250;
+    private static final double FALLOFF = 0.6;
+
+    private BufferedImage mask;
+
+    /**
+     * Renders the mask for a screen size.
+     * @param screenWidth The width of the screen
+     * @param screenHeight The height of the screen
+     */
+    public Lighting(int screenWidth, int screenHeight) {
+        mask = Textures.compatibleImage(screenWidth, screenHeight, Transparency.TRANSLUCENT);
+
+        // The player is drawn at the center of the screen.
+        int[] pixels = new int[screenWidth * screenHeight];
+        for (int y = 0; y < screenHeight; y++) {
+            for (int x = 0; x < screenWidth; x++) {
+                // Black, with the opacity in the alpha channel
+                pixels[y * screenWidth + x] = opacity(x - screenWidth / 2, y - screenHeight / 2) << 24;
+            }
+        }
+
+        mask.setRGB(0, 0, screenWidth, screenHeight, pixels, 0, screenWidth);
+    }
+
+    /**
+     * Calculates the opacity for the darkness overlay
+     * @param dx The x-distance from the player
+     * @param dy The y-distance from the player
+     * @return The opacity value for the darkness overlay, to be used in RGB colors.
+     */
+    public static int opacity(int dx, int dy) {
+        return Math.min(MAX_OPACITY, (int) ((Math.abs(dx) + Math.abs(dy)) * FALLOFF));
+    }
+
+    /**
+     * Darkens everything drawn so far.
+     * @param g The Graphics Object
+     */
+    public void paint(Graphics g) {
+        g.drawImage(mask, 0, 0, null);
+    }
+}
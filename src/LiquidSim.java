@@ -0,0 +1,404 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Makes the liquids on the loaded part of the map flow, while only ever looking at the liquid tiles that might move.
+ * A liquid tile is "awake" while it still has somewhere to flow. Once it's boxed in, it goes to sleep and costs nothing,
+ * until the World tells us that a tile next to it has changed.
+ *
+ * There's also a parallel mode for maps that are flooded with liquid. It sweeps the loaded rows in stripes of rows on a
+ * fork/join pool, in two steps: every liquid first decides where it wants to go, looking only at the old map, and then
+ * every tile works out its own new value from those decisions. No tile is written by more than one thread, and when two
+ * liquids want the same tile the one above wins, then the one on the left, so the result is the same for any number of
+ * threads and any stripe order.
+ *
+ * Tiles are indexed by their place in the World's window of loaded rows, (j % window rows) * width + i, so nothing here
+ * grows with the depth of the map.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class LiquidSim {
+    private World world;
+    private int width;
+
+    // The window of loaded rows is a power of 2 high, so a row's place in it is j & ringMask
+    private int ringMask;
+
+    // Liquid update clock
+    private int liquidTicks;
+
+    // The first loaded row, as of the current update
+    private int top;
+
+    // Awake tiles (as their index in the window) for the current update, and for the next one
+    private int[] active;
+    private int activeCount;
+    private int[] next;
+    private int nextCount;
+
+    // Tiles that are in the next list already, and tiles that liquid flowed into during the current update
+    private BitSet queued;
+    private BitSet moved;
+
+    // Results of a single flow
+    private static final int MOVED = 0;
+    private static final int STALLED = 1; // Could have moved, but the random side it picked was blocked
+    private static final int SETTLED = 2; // Nowhere to go
+
+    // Parallel mode: the pool (null in the normal mode), and the number of rows each task sweeps at least
+    private ForkJoinPool pool;
+    private static final int STRIPE_ROWS = World.CHUNK_SIZE;
+
+    // Where each liquid wants to flow in the parallel mode, as (tile ID << 2) | direction, indexed like the awake tiles
+    private byte[] intents;
+    private static final int STAY = 0;
+    private static final int DOWN = 1;
+    private static final int RIGHT = 2;
+    private static final int LEFT = 3;
+
+    /**
+     * Constructor
+     * @param world The map that the liquids are in
+     */
+    public LiquidSim(World world) {
+        this.world = world;
+        this.width = world.getWidth();
+        this.ringMask = world.getWindowRows() - 1;
+
+        this.liquidTicks = 0;
+
+        this.active = new int[64];
+        this.next = new int[64];
+        this.queued = new BitSet();
+        this.moved = new BitSet();
+    }
+
+    /** Getters **/
+    public int getAwakeCount() { return this.nextCount; }
+    public int getThreads() { return pool == null ? 0 : pool.getParallelism(); }
+
+    /**
+     * Switches between the normal mode and the parallel mode.
+     * @param threads The number of threads for the parallel mode, or 0 for the normal mode
+     */
+    public void setThreads(int threads) {
+        if (threads == getThreads())
+            return;
+
+        if (pool != null)
+            pool.shutdown();
+
+        if (threads > 0) {
+            pool = new ForkJoinPool(threads);
+
+            // Every tile is swept in the parallel mode, so the awake list isn't needed.
+            nextCount = 0;
+            queued.clear();
+
+            if (intents == null)
+                intents = new byte[world.getWidth() * world.getWindowRows()];
+        } else {
+            // The parallel mode doesn't keep track of awake tiles, so every liquid starts out awake again.
+            pool = null;
+            wakeAll();
+        }
+    }
+
+    /**
+     * Wakes up every liquid on the loaded part of the map.
+     */
+    public void wakeAll() {
+        wakeRows(world.getTopRow(), world.getBottomRow());
+    }
+
+    /**
+     * Wakes up every liquid in a range of rows, such as a chunk row that was just loaded.
+     * @param minJ The first row
+     * @param maxJ The row after the last one
+     */
+    public void wakeRows(int minJ, int maxJ) {
+        wakeRect(0, minJ, width - 1, maxJ - 1);
+    }
+
+    /**
+     * Wakes up every liquid in a rectangle, such as around a hole that was just blown in the map.
+     * @param minI The first column
+     * @param minJ The first row
+     * @param maxI The last column
+     * @param maxJ The last row
+     */
+    public void wakeRect(int minI, int minJ, int maxI, int maxJ) {
+        if (pool != null)
+            return;
+
+        // Only the part that's on the map and loaded, so the tiles can be read a chunk's row at a time
+        minI = Math.max(minI, 0);
+        maxI = Math.min(maxI, width - 1);
+        minJ = Math.max(minJ, world.getTopRow());
+        maxJ = Math.min(maxJ, world.getBottomRow() - 1);
+
+        int chunkMask = World.CHUNK_SIZE - 1;
+        for (int j = minJ; j <= maxJ; j++) {
+            int rowStart = (j & chunkMask) * World.CHUNK_SIZE;
+
+            for (int i = minI; i <= maxI; i++) {
+                byte[] tiles = world.getChunkTiles(i / World.CHUNK_SIZE, j / World.CHUNK_SIZE);
+
+                int end = Math.min(maxI, i | chunkMask);
+                for (; i <= end; i++) {
+                    if (Tiles.LIQUID[tiles[rowStart + (i & chunkMask)]])
+                        wake(i, j);
+                }
+                i = end;
+            }
+        }
+    }
+
+    /**
+     * Wakes up the liquid at a position, if there is one.
+     * @param i The column of the position
+     * @param j The row of the position
+     */
+    public void wake(int i, int j) {
+        if (pool != null || !world.inBounds(i, j) || !world.isLiquid(i, j))
+            return;
+
+        int index = index(i, j);
+        if (queued.get(index))
+            return;
+
+        queued.set(index);
+        if (nextCount == next.length)
+            next = Arrays.copyOf(next, next.length * 2);
+        next[nextCount++] = index;
+    }
+
+    /**
+     * Wakes up every liquid that could flow differently now that a tile has changed:
+     * the tile itself, and the tiles above and beside it, which could flow into it.
+     * @param i The column of the changed tile
+     * @param j The row of the changed tile
+     */
+    public void wakeAround(int i, int j) {
+        wake(i, j);
+        wake(i, j - 1);
+        wake(i - 1, j);
+        wake(i + 1, j);
+    }
+
+    /**
+     * Lets every awake liquid flow. Each liquid only moves once its update rate (in calls to this method) has passed.
+     */
+    public void update() {
+        this.liquidTicks++;
+
+        top = world.getTopRow();
+
+        if (pool != null) {
+            int bottom = world.getBottomRow();
+            pool.invoke(new Stripe(top, bottom, true));
+            pool.invoke(new Stripe(top, bottom, false));
+            return;
+        }
+
+        // The tiles woken since the last update are the ones to look at now.
+        int[] swap = active;
+        active = next;
+        activeCount = nextCount;
+        next = swap;
+        nextCount = 0;
+
+        for (int k = 0; k < activeCount; k++)
+            queued.clear(active[k]);
+
+        for (int k = 0; k < activeCount; k++) {
+            int index = active[k];
+            int i = index % width;
+            int j = top + ((index / width - top) & ringMask);
+
+            // The liquid may have flowed away or been replaced since it was woken up, or its row may have been unloaded.
+            if (!world.inBounds(i, j))
+                continue;
+            byte id = world.get(i, j);
+            if (!Tiles.LIQUID[id])
+                continue;
+
+            // Liquid that just flowed here has already moved this update.
+            if (moved.get(index))
+                continue;
+
+            // Not this liquid's turn to move yet, so stay awake.
+            if (this.liquidTicks % Tiles.UPDATE_RATE[id] != 0) {
+                wake(i, j);
+                continue;
+            }
+
+            // Moving wakes everything around both tiles through World.set, and a liquid that couldn't find
+            // a way this time keeps trying. A settled liquid just isn't woken again.
+            if (flow(i, j, id) == STALLED)
+                wake(i, j);
+        }
+
+        // Every tile that liquid moved into got woken up, so it's in the next list.
+        for (int k = 0; k < nextCount; k++)
+            moved.clear(next[k]);
+    }
+
+    /**
+     * Moves a liquid one tile down if it can, otherwise one tile to a side picked by a coin flip.
+     * @param i The column of the liquid
+     * @param j The row of the liquid
+     * @param id The tile ID of the liquid
+     * @return MOVED, STALLED or SETTLED
+     */
+    private int flow(int i, int j, byte id) {
+        boolean canRight = i + 1 < world.getWidth() && world.get(i + 1, j) == Tiles.CAVE;
+        boolean canLeft = i - 1 >= 0 && world.get(i - 1, j) == Tiles.CAVE;
+
+        // Flow down, but never into a row that isn't loaded
+        if (world.inBounds(i, j + 1) && world.get(i, j + 1) == Tiles.CAVE) {
+            moveLiquid(i, j, i, j + 1, id);
+        } else {
+            if (coinFlip(i, j) && canRight) {
+                moveLiquid(i, j, i + 1, j, id);
+            }
+            else if (canLeft) {
+                moveLiquid(i, j, i - 1, j, id);
+            }
+            else {
+                return canRight ? STALLED : SETTLED;
+            }
+        }
+
+        return MOVED;
+    }
+
+    /**
+     * Moves a liquid from one tile to another, leaving cave background behind.
+     */
+    private void moveLiquid(int fromI, int fromJ, int toI, int toJ, byte id) {
+        moved.set(index(toI, toJ));
+        world.set(fromI, fromJ, Tiles.CAVE);
+        world.set(toI, toJ, id);
+    }
+
+    /**
+     * A stripe of rows, split in half until it's small enough to sweep on one thread.
+     */
+    @SuppressWarnings("serial") // Never serialized
+    private class Stripe extends RecursiveAction {
+        private int minJ;
+        private int maxJ;
+        private boolean decide; // Deciding where to flow, or applying the decisions
+
+        public Stripe(int minJ, int maxJ, boolean decide) {
+            this.minJ = minJ;
+            this.maxJ = maxJ;
+            this.decide = decide;
+        }
+
+        @Override
+        protected void compute() {
+            if (maxJ - minJ > STRIPE_ROWS) {
+                int mid = (minJ + maxJ) / 2;
+                invokeAll(new Stripe(minJ, mid, decide), new Stripe(mid, maxJ, decide));
+                return;
+            }
+
+            for (int j = minJ; j < maxJ; j++) {
+                for (int i = 0; i < width; i++) {
+                    if (decide)
+                        intents[index(i, j)] = decide(i, j);
+                    else
+                        apply(i, j);
+                }
+            }
+        }
+    }
+
+    /**
+     * Parallel mode, first step: decides where the liquid at a position wants to go, from the old map only.
+     * Follows the same rules as flow(), but picks the random side from the position and the clock,
+     * so it doesn't depend on which thread gets there first.
+     * @return (tile ID << 2) | direction, or STAY
+     */
+    private byte decide(int i, int j) {
+        byte id = world.get(i, j);
+        if (!Tiles.LIQUID[id] || this.liquidTicks % Tiles.UPDATE_RATE[id] != 0)
+            return STAY;
+
+        int direction = STAY;
+        if (world.inBounds(i, j + 1) && world.get(i, j + 1) == Tiles.CAVE) {
+            direction = DOWN;
+        } else if (coinFlip(i, j) && i + 1 < width && world.get(i + 1, j) == Tiles.CAVE) {
+            direction = RIGHT;
+        } else if (i - 1 >= 0 && world.get(i - 1, j) == Tiles.CAVE) {
+            direction = LEFT;
+        }
+
+        return direction == STAY ? STAY : (byte) ((id << 2) | direction);
+    }
+
+    /**
+     * Parallel mode, second step: works out the new value of a tile from the decisions around it, and sets it.
+     * Only ever writes to its own tile.
+     */
+    private void apply(int i, int j) {
+        int intent = intents[index(i, j)];
+
+        if (intent != STAY) {
+            // A liquid that wanted to move leaves if it won the tile it wanted.
+            int toI = i, toJ = j;
+            switch (intent & 3) {
+                case DOWN: toJ++; break;
+                case RIGHT: toI++; break;
+                case LEFT: toI--; break;
+            }
+
+            if (winner(toI, toJ) == index(i, j))
+                world.setWithoutWaking(i, j, Tiles.CAVE);
+        } else if (world.get(i, j) == Tiles.CAVE) {
+            // An empty tile fills up with whichever liquid won it.
+            int from = winner(i, j);
+            if (from >= 0)
+                world.setWithoutWaking(i, j, (byte) (intents[from] >> 2));
+        }
+    }
+
+    /**
+     * Decides which liquid gets to flow into an empty tile: the one above, then the one on the left, then the one on the right.
+     * @return The index of the winning liquid, or -1 if none wanted this tile
+     */
+    private int winner(int i, int j) {
+        // The row above the window wasn't swept, so whatever is left over in its intents is stale.
+        if (j - 1 >= top && (intents[index(i, j - 1)] & 3) == DOWN)
+            return index(i, j - 1);
+        if (i - 1 >= 0 && (intents[index(i - 1, j)] & 3) == RIGHT)
+            return index(i - 1, j);
+        if (i + 1 < width && (intents[index(i + 1, j)] & 3) == LEFT)
+            return index(i + 1, j);
+
+        return -1;
+    }
+
+    /**
+     * Gets the index of a position in the window of loaded rows.
+     */
+    private int index(int i, int j) {
+        return (j & ringMask) * width + i;
+    }
+
+    /**
+     * A coin flip that only depends on the position and the clock.
+     * @return True for right, false for left
+     */
+    private boolean coinFlip(int i, int j) {
+        long h = (((long) j * width + i) << 32) ^ liquidTicks;
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return ((h ^ (h >>> 33)) & 1) == 0;
+    }
+}
@@ -1,260 +1,329 @@
-import java.awt.*;
-import java.util.ArrayList;
-
-/**
- * Player class, for the player obviously, the blue guy that jumps around on the screen.
- * The Player is a type of Block.
- *
- * @author Gene Yang
- * @version May 24, 2023
- */
-public class Player extends Block {
-    // Collision detection range of the player (in blocks)
-    private final int COLLISION_RANGE = 3;
-
-    // For movements
-    private boolean moveUp;
-    private boolean moveRight;
-    private boolean moveLeft;
-    private boolean inLiquid;
-
-    // Health
-    private double health;
-
-    // Jumping mechanism
-    private int speed = 3;
-    private double verticalVel = 0.0; // Vertical velocity (for jumping)
-    private double verticalAccel = 0.5; // Vertical acceleration (for jumping)
-    private int jumpAmt = 2;
-    private boolean canJump = true;
-
-    // Reload for mining gun
-    private int reload = 0;
-
-    // Spawn coordinates
-    private int spawnX;
-    private int spawnY;
-
-
-    /**
-     * Initializes player image and health
-     * @param x The x-coordinate of the player
-     * @param y The y-coordinate of the player
-     * @param w The width of the player
-     */
-    public Player(int x, int y, int w){
-        super(x, y, w, "src/imgs/player.png");
-
-        // Set spawn point
-        this.spawnX = x;
-        this.spawnY = y;
-
-        this.health = 100.0;
-        this.inLiquid = false;
-    }
-
-    /** Getters **/
-    public int getX(){ return this.x; }
-    public int getY(){ return this.y; }
-    public int getReload(){ return this.reload; }
-
-    /** Setters **/
-    public void setX(int x){this.x = x; }
-    public void setY(int y){ this.y = y; }
-    public void setReload(int reload){ this.reload = reload; }
-    public void setMoveUp(boolean toggle){ moveUp = toggle; }
-    public void setMoveRight(boolean toggle){ moveRight = toggle; }
-    public void setMoveLeft(boolean toggle){ moveLeft = toggle; }
-
-    /**
-     * Check for collisions
-     * Uses AABB (Axis-Aligned Bounding Box) collisions.
-     * @param hitbox The hitbox that we're currently checking
-     * @return True if the player collided with this block, false otherwise.
-     */
-    public boolean collided(Block hitbox){
-        return this.x + this.w > hitbox.x &&
-               this.x < hitbox.x + hitbox.w &&
-               this.y + this.w > hitbox.y &&
-               this.y < hitbox.y + hitbox.w;
-    }
-
-    /**
-     * Handles the player's x-collisions and sets the appropriate x-coordinate.
-     * @param hitboxes The 2D map of blocks
-     */
-    public void xCollide(Block[][] hitboxes){
-        // Width of the map blocks
-        int blockWidth = hitboxes[0][0].w;
-
-        for(int i = this.x/blockWidth - 3; i <= this.x/blockWidth + 3; i++){
-            for(int j = this.y/blockWidth - 3; j <= this.y/blockWidth + 3; j++){
-                if(i < 0 || i >= hitboxes.length || j < 0 || j >= hitboxes[0].length)
-                    continue;
-
-                if(collided(hitboxes[i][j]) && hitboxes[i][j] instanceof SolidBlock){
-                    // Either the player is touching the left side of the block
-                    if (this.x < hitboxes[i][j].x) {
-                        this.x = hitboxes[i][j].x - this.w;
-                    }
-
-                    // Or the player is touching the right side.
-                    else {
-                        this.x = hitboxes[i][j].x + hitboxes[i][j].w;
-                    }
-                }
-            }
-        }
-    }
-
-    /**
-     * Handles the player's y-collisions and sets the appropriate y-coordinate.
-     * @param hitboxes The 2D map of blocks
-     */
-    public void yCollide(Block[][] hitboxes){
-        // Width of the map blocks
-        int blockWidth = hitboxes[0][0].w;
-
-        // Set the jumping option to false for now
-        this.canJump = false;
-
-        for(int i = this.x/blockWidth - COLLISION_RANGE; i <= this.x/blockWidth + COLLISION_RANGE; i++){
-            for(int j = this.y/blockWidth - COLLISION_RANGE; j <= this.y/blockWidth + COLLISION_RANGE; j++){
-                if(i < 0 || i >= hitboxes.length || j < 0 || j >= hitboxes[0].length)
-                    continue;
-
-                if(collided(hitboxes[i][j]) && hitboxes[i][j] instanceof SolidBlock){
-                    this.verticalVel = 0;
-
-                    // Either the player is touching the upper side of the block
-                    if(this.y < hitboxes[i][j].y){
-                        this.y = hitboxes[i][j].y - this.w;
-
-                        // Can jump from the top side of a block.
-                        this.canJump = true;
-                    }
-
-                    // Or the player is touching the bottom side.
-                    else {
-                        this.y = hitboxes[i][j].y + hitboxes[i][j].w;
-                    }
-                }
-            }
-        }
-    }
-
-    /**
-     * Preliminary collisions to check if the player is in liquid (and particularly, if the player is in Acid)
-     * @param hitboxes The 2D array of map blocks
-     */
-    public void checkCollisions(Block[][] hitboxes){
-        // Width of the map blocks
-        int blockWidth = hitboxes[0][0].w;
-
-        for(int i = this.x/blockWidth - COLLISION_RANGE; i <= this.x/blockWidth + COLLISION_RANGE; i++){
-            for(int j = this.y/blockWidth - COLLISION_RANGE; j <= this.y/blockWidth + COLLISION_RANGE; j++){
-                if(i < 0 || i >= hitboxes.length || j < 0 || j >= hitboxes[0].length)
-                    continue;
-
-                if(collided(hitboxes[i][j])){
-                    if(hitboxes[i][j] instanceof LiquidBlock)
-                        this.inLiquid = true;
-
-                    if(hitboxes[i][j] instanceof Acid)
-                        this.health -= 0.2;
-                }
-            }
-        }
-    }
-
-    /**
-     * Checks if the player collided with enemies.
-     * @param enemies The list of enemies present
-     */
-    public void checkEnemyCollisions(ArrayList<Enemy> enemies){
-        for(Enemy e : enemies){
-            if(collided(e)){
-                this.health -= 0.2;
-            }
-        }
-    }
-
-    /**
-     * Resets player coordinates to spawn after death.
-     */
-    public void handleDeaths(){
-        if(this.health <= 0){
-            this.x = this.spawnX;
-            this.y = this.spawnY;
-        }
-    }
-
-    /**
-     * Handles all movements of the player, along with things like health regen and reload.
-     * @param hitboxes The list of hitboxes present, just the entire map.
-     */
-    public void move(Block[][] hitboxes){
-        this.inLiquid = false;
-
-        // Preliminary collisions to see if the player is in water.
-        this.checkCollisions(hitboxes);
-
-        // Different considerations in water
-        if(this.inLiquid){
-            this.speed = 2;
-            this.jumpAmt = -1;
-            this.verticalAccel = 0.07;
-            this.canJump = true;
-
-            this.verticalVel = Math.min(this.verticalVel, 3);
-        } else {
-            this.speed = 3;
-            this.verticalAccel = 0.12;
-            this.jumpAmt = -6;
-
-            this.verticalVel = Math.min(this.verticalVel, 4);
-        }
-
-        // X-axis movements
-        if(moveLeft) this.x -= this.speed;
-        if(moveRight) this.x += this.speed;
-        this.xCollide(hitboxes);
-
-        if(moveUp && this.canJump) this.verticalVel = this.jumpAmt;
-
-        // Simulate gravity while doing y-axis movements
-        this.y += this.verticalVel;
-        this.verticalVel += verticalAccel;
-
-        this.yCollide(hitboxes);
-
-        // For when the player's health drops to 0
-        this.handleDeaths();
-
-        // Health regen
-        if(this.health < 100.0)
-            this.health += 0.05;
-
-        // Reload time decrement
-        if (this.reload > 0)
-            this.reload--;
-    }
-
-    /**
-     * Draws the player
-     * @param g Graphics object
-     * @param playerPos The position the player as an array, [x, y]
-     */
-    @Override
-    public void paint(Graphics g, int screenWidth, int screenHeight, int[] playerPos){
-        g.drawImage(img, screenWidth/2, screenHeight/2, this.w, this.w, null);
-
-        // Health bar, green rectangle over a red base.
-        g.setColor(Color.RED);
-        g.fillRect(screenWidth/2, screenHeight/2 - 15, 30, 5);
-
-        g.setColor(Color.GREEN);
-        g.fillRect(screenWidth/2, screenHeight/2 - 15, (int)(30 * this.health/100), 5);
-    }
-}
-
+import java.awt.*;
+
+/**
+ * Player class, for the player obviously, the blue guy that jumps around on the screen.
+ * The Player is a type of Block.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class Player extends Block {
+    // For movements
+    private boolean moveUp;
+    private boolean moveRight;
+    private boolean moveLeft;
+    private boolean inLiquid;
+
+    // Health
+    private double health;
+
+    // Jumping mechanism
+    private int speed = 3;
+    private double verticalVel = 0.0; // Vertical velocity (for jumping)
+    private double verticalAccel = 0.5; // Vertical acceleration (for jumping)
+    private int jumpAmt = 2;
+    private boolean canJump = true;
+
+    // Reload for mining gun
+    private int reload = 0;
+
+    // Spawn coordinates
+    private int spawnX;
+    private int spawnY;
+
+    // Enemies found near the player, reused every tick
+    private IntList nearbyEnemies = new IntList();
+
+
+    /**
+     * Initializes player image and health
+     * @param x The x-coordinate of the player
+     * @param y The y-coordinate of the player
+     * @param w The width of the player
+     */
+    public Player(int x, int y, int w){
+        super(x, y, w, "player");
+
+        // Set spawn point
+        this.spawnX = x;
+        this.spawnY = y;
+
+        this.health = 100.0;
+        this.inLiquid = false;
+    }
+
+    /** Getters **/
+    public int getX(){ return this.x; }
+    public int getY(){ return this.y; }
+    public int getReload(){ return this.reload; }
+    public double getHealth(){ return this.health; }
+
+    /** Setters **/
+    public void setX(int x){this.x = x; }
+    public void setY(int y){ this.y = y; }
+    public void setReload(int reload){ this.reload = reload; }
+    public void setMoveUp(boolean toggle){ moveUp = toggle; }
+    public void setMoveRight(boolean toggle){ moveRight = toggle; }
+    public void setMoveLeft(boolean toggle){ moveLeft = toggle; }
+
+    /**
+     * Check for collisions
+     * Uses AABB (Axis-Aligned Bounding Box) collisions.
+     * @param hitbox The hitbox that we're currently checking
+     * @return True if the player collided with this block, false otherwise.
+     */
+    public boolean collided(Block hitbox){
+        return collided(hitbox.x, hitbox.y, hitbox.w);
+    }
+
+    /**
+     * Check for collisions with a square hitbox, such as a map tile.
+     * @param hitX The x-coordinate of the hitbox
+     * @param hitY The y-coordinate of the hitbox
+     * @param hitW The width of the hitbox
+     * @return True if the player collided with the hitbox, false otherwise.
+     */
+    public boolean collided(int hitX, int hitY, int hitW){
+        return this.x + this.w > hitX &&
+               this.x < hitX + hitW &&
+               this.y + this.w > hitY &&
+               this.y < hitY + hitW;
+    }
+
+    /**
+     * Handles the player's x-collisions and sets the appropriate x-coordinate.
+     * The move is swept: every column of tiles the player's box passed through since fromX is checked, nearest first,
+     * so a fast move stops at the first solid tile instead of going through it. Only the rows the box overlaps are
+     * looked at.
+     * @param world The game map
+     * @param fromX The x-coordinate of the player before it moved
+     */
+    public void xCollide(World world, int fromX){
+        // Width of the map blocks
+        int blockWidth = world.getBlockWidth();
+
+        int minJ = Math.floorDiv(this.y, blockWidth);
+        int maxJ = Math.floorDiv(this.y + this.w - 1, blockWidth);
+
+        // Moving right, so the player can hit the left side of a block
+        if(this.x > fromX){
+            int lastI = Math.floorDiv(this.x + this.w - 1, blockWidth);
+            for(int i = Math.floorDiv(fromX + this.w - 1, blockWidth) + 1; i <= lastI; i++){
+                if(solidColumn(world, i, minJ, maxJ)){
+                    this.x = i * blockWidth - this.w;
+                    return;
+                }
+            }
+        }
+
+        // Moving left, so the player can hit the right side of a block
+        else if(this.x < fromX){
+            int lastI = Math.floorDiv(this.x, blockWidth);
+            for(int i = Math.floorDiv(fromX, blockWidth) - 1; i >= lastI; i--){
+                if(solidColumn(world, i, minJ, maxJ)){
+                    this.x = i * blockWidth + blockWidth;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Handles the player's y-collisions and sets the appropriate y-coordinate.
+     * Swept like xCollide(), so falling fast can't go through the floor.
+     * @param world The game map
+     * @param fromY The y-coordinate of the player before it moved
+     */
+    public void yCollide(World world, int fromY){
+        // Width of the map blocks
+        int blockWidth = world.getBlockWidth();
+
+        // Set the jumping option to false for now
+        this.canJump = false;
+
+        int minI = Math.floorDiv(this.x, blockWidth);
+        int maxI = Math.floorDiv(this.x + this.w - 1, blockWidth);
+
+        // Falling, so the player can land on the upper side of a block
+        if(this.y > fromY){
+            int lastJ = Math.floorDiv(this.y + this.w - 1, blockWidth);
+            for(int j = Math.floorDiv(fromY + this.w - 1, blockWidth) + 1; j <= lastJ; j++){
+                if(solidRow(world, j, minI, maxI)){
+                    this.y = j * blockWidth - this.w;
+                    this.verticalVel = 0;
+
+                    // Can jump from the top side of a block.
+                    this.canJump = true;
+                    return;
+                }
+            }
+        }
+
+        // Rising, so the player can bump the bottom side of a block
+        else if(this.y < fromY){
+            int lastJ = Math.floorDiv(this.y, blockWidth);
+            for(int j = Math.floorDiv(fromY, blockWidth) - 1; j >= lastJ; j--){
+                if(solidRow(world, j, minI, maxI)){
+                    this.y = j * blockWidth + blockWidth;
+                    this.verticalVel = 0;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if any tile in a column, between two rows, is solid.
+     */
+    private static boolean solidColumn(World world, int i, int minJ, int maxJ){
+        for(int j = minJ; j <= maxJ; j++){
+            if((world.flagsAt(i, j) & Tiles.FLAG_SOLID) != 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if any tile in a row, between two columns, is solid.
+     */
+    private static boolean solidRow(World world, int j, int minI, int maxI){
+        for(int i = minI; i <= maxI; i++){
+            if((world.flagsAt(i, j) & Tiles.FLAG_SOLID) != 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Preliminary collisions to check if the player is in liquid (and particularly, if the player is in Acid)
+     * Only the tiles the player's box overlaps are looked at.
+     * @param world The game map
+     */
+    public void checkCollisions(World world){
+        // Width of the map blocks
+        int blockWidth = world.getBlockWidth();
+
+        int maxI = Math.floorDiv(this.x + this.w - 1, blockWidth);
+        int maxJ = Math.floorDiv(this.y + this.w - 1, blockWidth);
+
+        for(int i = Math.floorDiv(this.x, blockWidth); i <= maxI; i++){
+            for(int j = Math.floorDiv(this.y, blockWidth); j <= maxJ; j++){
+                int flags = world.flagsAt(i, j);
+
+                if((flags & Tiles.FLAG_LIQUID) != 0)
+                    this.inLiquid = true;
+
+                if((flags & Tiles.FLAG_DAMAGING) != 0)
+                    this.health -= 0.2;
+            }
+        }
+    }
+
+    /**
+     * Checks if the player collided with enemies.
+     * Only the enemies in the grid cells around the player are checked.
+     * @param enemies The enemies present
+     * @param grid The spatial grid of the enemies
+     */
+    public void checkEnemyCollisions(Enemies enemies, EnemyGrid grid){
+        nearbyEnemies.clear();
+        grid.query(this.x, this.y, this.x + this.w, this.y + this.w, nearbyEnemies);
+
+        for(int k = 0; k < nearbyEnemies.size(); k++){
+            int e = nearbyEnemies.get(k);
+            if(collided(enemies.x[e], enemies.y[e], enemies.getW())){
+                this.health -= 0.2;
+            }
+        }
+    }
+
+    /**
+     * Resets player coordinates to spawn after death.
+     */
+    public void handleDeaths(){
+        if(this.health <= 0){
+            this.x = this.spawnX;
+            this.y = this.spawnY;
+        }
+    }
+
+    /**
+     * Handles all movements of the player, along with things like health regen and reload.
+     * @param world The game map
+     */
+    public void move(World world){
+        this.inLiquid = false;
+
+        // Preliminary collisions to see if the player is in water.
+        this.checkCollisions(world);
+
+        // Different considerations in water
+        if(this.inLiquid){
+            this.speed = 2;
+            this.jumpAmt = -1;
+            this.verticalAccel = 0.07;
+            this.canJump = true;
+
+            this.verticalVel = Math.min(this.verticalVel, 3);
+        } else {
+            this.speed = 3;
+            this.verticalAccel = 0.12;
+            this.jumpAmt = -6;
+
+            this.verticalVel = Math.min(this.verticalVel, 4);
+        }
+
+        // X-axis movements
+        int oldX = this.x;
+        if(moveLeft) this.x -= this.speed;
+        if(moveRight) this.x += this.speed;
+        this.xCollide(world, oldX);
+
+        if(moveUp && this.canJump) this.verticalVel = this.jumpAmt;
+
+        // Simulate gravity while doing y-axis movements
+        int oldY = this.y;
+        this.y += this.verticalVel;
+        this.verticalVel += verticalAccel;
+
+        this.yCollide(world, oldY);
+
+        // For when the player's health drops to 0
+        this.handleDeaths();
+
+        // Health regen
+        if(this.health < 100.0)
+            this.health += 0.05;
+
+        // Reload time decrement
+        if (this.reload > 0)
+            this.reload--;
+    }
+
+    /**
+     * Draws the player
+     * @param g Graphics object
+     * @param playerPos The position the player as an array, [x, y]
+     */
+    @Override
+    public void paint(Graphics g, int screenWidth, int screenHeight, int[] playerPos){
+        paint(g, screenWidth, screenHeight, this.health);
+    }
+
+    /**
+     * Draws the player with a given health, such as the health from a Snapshot.
+     * @param g Graphics object
+     * @param health The health to show on the health bar
+     */
+    public void paint(Graphics g, int screenWidth, int screenHeight, double health){
+        Textures.draw(g, getTexture(), screenWidth/2, screenHeight/2, this.w, this.w);
+
+        // Health bar, green rectangle over a red base.
+        g.setColor(Color.RED);
+        g.fillRect(screenWidth/2, screenHeight/2 - 15, 30, 5);
+
+        g.setColor(Color.GREEN);
+        g.fillRect(screenWidth/2, screenHeight/2 - 15, (int)(30 * health/100), 5);
+    }
+}
+
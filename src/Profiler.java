@@ -0,0 +1,250 @@
+import java.awt.*;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Times each phase of a tick and of a frame, so lag can be pinned on whatever caused it.
+ *
+ * A phase is timed with one System.nanoTime() call at each end, and end() hands back the time it read, so the next
+ * phase can start from it. Each phase keeps its last WINDOW times in a ring buffer, which the overlay shows the median,
+ * 99th percentile and worst of, and every time ever in a histogram (buckets an eighth of a power of 2 wide, so about
+ * 10% precision), which is what goes in the CSV files.
+ * Each phase is only ever timed on one thread (the tick phases on the game loop, the frame phases on whichever thread
+ * draws the frames), so nothing is locked. The overlay can read a sample that's being written, which is fine for an
+ * overlay.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class Profiler {
+    // Tick phases, timed on the game loop thread
+    public static final int TICK = 0;
+    public static final int STREAMING = 1;
+    public static final int LIQUIDS = 2;
+    public static final int PLAYER = 3;
+    public static final int BULLETS = 4;
+    public static final int ENEMIES = 5;
+    public static final int PUBLISH = 6;
+
+    // Frame phases, timed on the Swing thread, or the render thread of a FrameCanvas
+    public static final int FRAME = 7;
+    public static final int TILES = 8;
+    public static final int ENEMY_SPRITES = 9;
+    public static final int DECOR = 10;
+    public static final int LIGHTING = 11;
+    public static final int HUD = 12;
+    public static final int CUTSCENE = 13;
+    public static final int PRESENT = 14; // Flipping a finished frame onto the screen (FrameCanvas only)
+
+    public static final int COUNT = 15;
+    public static final String[] NAMES = {
+            "tick", "streaming", "liquids", "player", "bullets", "enemies", "publish",
+            "frame", "tiles", "enemy sprites", "decor", "lighting", "hud", "cutscene", "present"
+    };
+
+    // Recent times kept for each phase (a power of 2)
+    private static final int WINDOW = 1024;
+
+    // Histogram buckets: times under 16 ns get a bucket each, then each power of 2 is split into 8
+    private static final int SUB_BUCKETS = 8;
+    private static final int BUCKETS = 16 + (63 - 4) * SUB_BUCKETS;
+
+    // How often the overlay works out its numbers again
+    private static final long OVERLAY_REFRESH_NANOS = 500_000_000L;
+    private static final Font OVERLAY_FONT = Font.decode("Monospaced-12");
+
+    // Recent times, and how many times have been recorded in all
+    private final long[][] recent = new long[COUNT][WINDOW];
+    private final long[] count = new long[COUNT];
+
+    // Every time so far
+    private final long[][] histogram = new long[COUNT][BUCKETS];
+    private final long[] total = new long[COUNT];
+    private final long[] max = new long[COUNT];
+
+    // What the overlay shows, and when it was worked out
+    private String[] overlayLines = new String[0];
+    private long overlayTime;
+    private final long[] sorted = new long[WINDOW];
+
+    /** Getters **/
+    public long getCount(int phase) { return this.count[phase]; }
+    public long getMax(int phase) { return this.max[phase]; }
+
+    /**
+     * Starts timing a phase.
+     * @return The time now, to pass to end()
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Finishes timing a phase.
+     * @param phase The phase
+     * @param start When it started, from start() or the end() of the phase before it
+     * @return The time now, so the next phase can start from it
+     */
+    public long end(int phase, long start) {
+        long now = System.nanoTime();
+        record(phase, now - start);
+        return now;
+    }
+
+    /**
+     * Adds a time for a phase.
+     * @param phase The phase
+     * @param nanos How long it took
+     */
+    public void record(int phase, long nanos) {
+        recent[phase][(int) (count[phase] & (WINDOW - 1))] = nanos;
+        count[phase]++;
+
+        histogram[phase][bucket(nanos)]++;
+        total[phase] += nanos;
+        max[phase] = Math.max(max[phase], nanos);
+    }
+
+    /**
+     * Gets a percentile of a phase's recent times.
+     * @param phase The phase
+     * @param percent The percentile, from 0 to 100
+     * @return The time in nanoseconds, or 0 if the phase has never been timed
+     */
+    public long recentPercentile(int phase, double percent) {
+        int n = (int) Math.min(count[phase], WINDOW);
+        if (n == 0)
+            return 0;
+
+        System.arraycopy(recent[phase], 0, sorted, 0, n);
+        Arrays.sort(sorted, 0, n);
+        return sorted[Math.min(n - 1, (int) (n * percent / 100))];
+    }
+
+    /**
+     * Gets a percentile of every time a phase has taken, from its histogram.
+     * @param phase The phase
+     * @param percent The percentile, from 0 to 100
+     * @return The start of the bucket it's in, in nanoseconds, or 0 if the phase has never been timed
+     */
+    public long percentile(int phase, double percent) {
+        long rank = (long) (count[phase] * percent / 100);
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += histogram[phase][b];
+            if (seen > rank)
+                return bucketStart(b);
+        }
+        return 0;
+    }
+
+    /**
+     * Describes a phase's times so far, for printing.
+     * @param phase The phase
+     * @return The phase's name, count, mean, p50, p99 and max
+     */
+    public String summary(int phase) {
+        return String.format("%-13s %9d x  mean %8.1f  p50 %8.1f  p99 %8.1f  max %9.1f us", NAMES[phase], count[phase],
+                count[phase] == 0 ? 0 : total[phase] / 1e3 / count[phase], percentile(phase, 50) / 1e3,
+                percentile(phase, 99) / 1e3, max[phase] / 1e3);
+    }
+
+    /**
+     * Draws the recent times of every phase that's been timed.
+     * @param g The Graphics Object
+     * @param x The x-coordinate of the top left of the overlay
+     * @param y The y-coordinate of the top left of the overlay
+     */
+    public void paint(Graphics g, int x, int y) {
+        long now = System.nanoTime();
+        if (now - overlayTime >= OVERLAY_REFRESH_NANOS) {
+            overlayLines = overlayLines();
+            overlayTime = now;
+        }
+
+        g.setFont(OVERLAY_FONT);
+        int lineHeight = g.getFontMetrics().getHeight();
+
+        g.setColor(new Color(0, 0, 0, 170));
+        g.fillRect(x, y, 330, lineHeight * overlayLines.length + 6);
+
+        g.setColor(Color.WHITE);
+        for (int k = 0; k < overlayLines.length; k++)
+            g.drawString(overlayLines[k], x + 5, y + lineHeight * (k + 1));
+    }
+
+    private String[] overlayLines() {
+        String[] lines = new String[COUNT + 1];
+        int n = 0;
+        lines[n++] = String.format("%-13s %8s %8s %8s", "us", "p50", "p99", "max");
+
+        for (int phase = 0; phase < COUNT; phase++) {
+            if (count[phase] == 0)
+                continue;
+
+            lines[n++] = String.format("%-13s %8.1f %8.1f %8.1f", NAMES[phase], recentPercentile(phase, 50) / 1e3,
+                    recentPercentile(phase, 99) / 1e3, recentPercentile(phase, 100) / 1e3);
+        }
+
+        return Arrays.copyOf(lines, n);
+    }
+
+    /**
+     * Writes every phase's times so far into two CSV files: one line per phase with its count, mean, p50, p99 and max,
+     * and one line per histogram bucket that has anything in it.
+     * @param summaryFile Where to write the phases
+     * @param histogramFile Where to write the histograms
+     */
+    public void writeCsv(Path summaryFile, Path histogramFile) {
+        try (PrintWriter summary = new PrintWriter(Files.newBufferedWriter(summaryFile));
+             PrintWriter buckets = new PrintWriter(Files.newBufferedWriter(histogramFile))) {
+            summary.println("phase,count,mean_us,p50_us,p99_us,max_us");
+            buckets.println("phase,from_us,to_us,count");
+
+            for (int phase = 0; phase < COUNT; phase++) {
+                if (count[phase] == 0)
+                    continue;
+
+                summary.printf("%s,%d,%.3f,%.3f,%.3f,%.3f%n", NAMES[phase], count[phase],
+                        total[phase] / 1e3 / count[phase], percentile(phase, 50) / 1e3,
+                        percentile(phase, 99) / 1e3, max[phase] / 1e3);
+
+                for (int b = 0; b < BUCKETS; b++) {
+                    if (histogram[phase][b] != 0)
+                        buckets.printf("%s,%.3f,%.3f,%d%n", NAMES[phase], bucketStart(b) / 1e3,
+                                bucketStart(b + 1) / 1e3, histogram[phase][b]);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Gets the histogram bucket a time goes in.
+     */
+    private static int bucket(long nanos) {
+        if (nanos < 16)
+            return (int) Math.max(0, nanos);
+
+        int power = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >> (power - 3)) & (SUB_BUCKETS - 1);
+        return 16 + (power - 4) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Gets the shortest time that goes in a histogram bucket.
+     */
+    private static long bucketStart(int bucket) {
+        if (bucket < 16)
+            return bucket;
+
+        int power = (bucket - 16) / SUB_BUCKETS + 4;
+        int sub = (bucket - 16) % SUB_BUCKETS;
+        return (1L << power) + ((long) sub << (power - 3));
+    }
+}
@@ -0,0 +1,214 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+/**
+ * A recorded session: the seed and settings it was played with, and every input along with the tick it was applied on.
+ * The simulation only changes on a tick, and only depends on the seed, the settings and the inputs it applies, so
+ * applying the same inputs on the same ticks plays the exact same session again, with a window or without one and at
+ * any speed (see Simulation.setReplay). That makes a recording of a laggy playthrough a repeatable load test.
+ *
+ * The file is small enough to keep lots of: a header, then for each input the ticks since the one before it as a
+ * variable-length number, the type and whether it was pressed in a byte, and the screen position for the ones aimed at
+ * something. It ends with the ticks to the end of the session and an END byte.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class Recording {
+    // "RPLY", and the version of the format
+    private static final int MAGIC = 0x52504c59;
+    private static final int VERSION = 1;
+
+    // Type byte that marks the end of the session
+    private static final int END = 0x7f;
+
+    // Settings the session was played with
+    private long seed;
+    private int labDepth;
+    private int liquidThreads;
+
+    // Every input, in order, and the tick each one was applied on
+    private IntList ticks;
+    private ArrayList<GameInput> inputs;
+
+    // The number of ticks the session lasted
+    private int endTick;
+
+    private Recording(long seed, int labDepth, int liquidThreads) {
+        this.seed = seed;
+        this.labDepth = labDepth;
+        this.liquidThreads = liquidThreads;
+        this.ticks = new IntList();
+        this.inputs = new ArrayList<GameInput>();
+    }
+
+    /** Getters **/
+    public long getSeed() { return this.seed; }
+    public int getLabDepth() { return this.labDepth; }
+    public int getLiquidThreads() { return this.liquidThreads; }
+    public int getEndTick() { return this.endTick; }
+    public int size() { return this.inputs.size(); }
+    public int getTick(int k) { return this.ticks.get(k); }
+    public GameInput getInput(int k) { return this.inputs.get(k); }
+
+    /**
+     * Reads a recording.
+     * @param file The file it was recorded to
+     * @return The recording
+     */
+    public static Recording read(Path file) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                throw new IOException(file + " isn't a recording this version of the game can play");
+
+            Recording recording = new Recording(in.readLong(), in.readInt(), in.readInt());
+
+            int tick = 0;
+            while (true) {
+                tick += readVarInt(in);
+                int b = in.readUnsignedByte();
+                int type = b & 0x7f;
+                if (type == END)
+                    break;
+
+                boolean pressed = (b & 0x80) != 0;
+                int x = 0;
+                int y = 0;
+                if (isAimed(type)) {
+                    x = zigZagDecode(readVarInt(in));
+                    y = zigZagDecode(readVarInt(in));
+                }
+
+                recording.ticks.add(tick);
+                recording.inputs.add(new GameInput(type, pressed, x, y));
+            }
+
+            recording.endTick = tick;
+            return recording;
+        } catch (EOFException e) {
+            throw new UncheckedIOException(new IOException(file + " ends in the middle of a recording", e));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the inputs of a session to a file as they're applied.
+     */
+    public static class Recorder implements Closeable {
+        private DataOutputStream out;
+
+        // The tick of the last input written
+        private int lastTick;
+
+        // The number of ticks the session has lasted so far, written when the recorder is closed
+        private int endTick;
+
+        /**
+         * Starts a recording.
+         * @param file Where to record to. Replaced if it exists.
+         * @param seed The seed of the map
+         * @param labDepth The depth of the lab in blocks
+         * @param liquidThreads The number of liquid threads (0 for the normal liquid simulation)
+         */
+        public Recorder(Path file, long seed, int labDepth, int liquidThreads) {
+            try {
+                out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(seed);
+                out.writeInt(labDepth);
+                out.writeInt(liquidThreads);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Records an input.
+         * @param tick The tick it was applied on
+         * @param input The input
+         */
+        public void record(int tick, GameInput input) {
+            try {
+                writeVarInt(out, tick - lastTick);
+                out.writeByte(input.type | (input.pressed ? 0x80 : 0));
+                if (isAimed(input.type)) {
+                    writeVarInt(out, zigZagEncode(input.x));
+                    writeVarInt(out, zigZagEncode(input.y));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            lastTick = tick;
+        }
+
+        /**
+         * Sets how long the session has lasted.
+         * @param ticks The number of ticks
+         */
+        public void setEndTick(int ticks) {
+            this.endTick = ticks;
+        }
+
+        /**
+         * Ends the recording and closes the file.
+         */
+        @Override
+        public void close() {
+            try {
+                writeVarInt(out, Math.max(0, endTick - lastTick));
+                out.writeByte(END);
+                out.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Checks if an input type comes with a position on the screen.
+     */
+    private static boolean isAimed(int type) {
+        return type == GameInput.SHOOT || type == GameInput.TRIGGER || type == GameInput.BEAM;
+    }
+
+    // Variable-length numbers: 7 bits a byte, lowest first, with the top bit set on every byte but the last
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Number too long in a recording");
+    }
+
+    // Screen positions can be negative (dragging off the window), so small negatives are kept short too
+    private static int zigZagEncode(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int zigZagDecode(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,255 @@
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * One file holding a square of REGION_SIZE x REGION_SIZE chunks, memory-mapped so that reading or writing a chunk only
+ * touches the pages that chunk is on, and the operating system pages the rest in and out as it likes.
+ *
+ * The file starts with a header: a magic number, a format version, and then a table with an entry for every chunk in
+ * the region, which is the sector the chunk starts at (0 if it was never saved) and its length in bytes.
+ * After the header come the chunks, each starting on a SECTOR_BYTES boundary: the tiles and then the decor, each either
+ * run-length encoded or as a palette of the few IDs the chunk uses followed by 1, 2 or 4 bits per tile (or nothing at
+ * all, if there's only one), whichever is smaller. A chunk that's saved again is written over its old copy if it still
+ * fits, or else added to the end.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class RegionFile implements Closeable {
+    // Chunks per side of a region
+    public static final int REGION_SIZE = 32;
+
+    // Chunks are laid out in sectors of this many bytes
+    private static final int SECTOR_BYTES = 128;
+
+    // How an array of IDs is stored
+    private static final int RUN_LENGTH = 0;
+    private static final int PALETTE = 1;
+
+    // "CAVE", and the version of the format
+    private static final int MAGIC = 0x43415645;
+    private static final int VERSION = 1;
+
+    // Size of the header, in bytes and in sectors
+    private static final int HEADER_BYTES = 8 + REGION_SIZE * REGION_SIZE * 8;
+    private static final int HEADER_SECTORS = (HEADER_BYTES + SECTOR_BYTES - 1) / SECTOR_BYTES;
+
+    private FileChannel channel;
+    private MappedByteBuffer map;
+
+    // The first sector after the last chunk, where new chunks go
+    private int endSector;
+
+    /**
+     * Opens a region file, or creates an empty one.
+     * @param path Where the file is
+     */
+    public RegionFile(Path path) {
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            if (channel.size() == 0) {
+                mapSectors(HEADER_SECTORS * 2);
+                map.putInt(0, MAGIC);
+                map.putInt(4, VERSION);
+                endSector = HEADER_SECTORS;
+            } else {
+                map = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+                if (channel.size() < HEADER_BYTES || map.getInt(0) != MAGIC || map.getInt(4) != VERSION)
+                    throw new IOException(path + " isn't a region file");
+
+                // New chunks go after the furthest one
+                endSector = HEADER_SECTORS;
+                for (int index = 0; index < REGION_SIZE * REGION_SIZE; index++) {
+                    if (sectorOf(index) != 0)
+                        endSector = Math.max(endSector, sectorOf(index) + sectorsFor(lengthOf(index)));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Checks if a chunk has been saved.
+     * @param index The chunk's place in the region, row * REGION_SIZE + column
+     */
+    public boolean has(int index) {
+        return sectorOf(index) != 0;
+    }
+
+    /**
+     * Reads a chunk.
+     * @param index The chunk's place in the region, row * REGION_SIZE + column
+     * @param tiles Where to put the tile IDs
+     * @param decor Where to put the decor IDs
+     * @return True if the chunk was read, false if it was never saved
+     */
+    public boolean read(int index, byte[] tiles, byte[] decor) {
+        int sector = sectorOf(index);
+        if (sector == 0)
+            return false;
+
+        byte[] encoded = new byte[lengthOf(index)];
+        ByteBuffer view = map.duplicate();
+        view.position(sector * SECTOR_BYTES);
+        view.get(encoded);
+
+        int k = decode(encoded, 0, tiles);
+        decode(encoded, k, decor);
+        return true;
+    }
+
+    /**
+     * Writes a chunk, over its old copy if there's room.
+     * @param index The chunk's place in the region, row * REGION_SIZE + column
+     * @param tiles The tile IDs
+     * @param decor The decor IDs
+     */
+    public void write(int index, byte[] tiles, byte[] decor) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+        encode(tiles, out);
+        encode(decor, out);
+        byte[] encoded = out.toByteArray();
+
+        int sector = sectorOf(index);
+        if (sector == 0 || sectorsFor(encoded.length) > sectorsFor(lengthOf(index))) {
+            // Doesn't fit where it was (the old copy's space is just left behind)
+            sector = endSector;
+            endSector += sectorsFor(encoded.length);
+
+            if ((long) endSector * SECTOR_BYTES > map.capacity())
+                mapSectors(Math.max(endSector, map.capacity() / SECTOR_BYTES * 2));
+        }
+
+        ByteBuffer view = map.duplicate();
+        view.position(sector * SECTOR_BYTES);
+        view.put(encoded);
+
+        map.putInt(8 + index * 8, sector);
+        map.putInt(12 + index * 8, encoded.length);
+    }
+
+    /**
+     * Writes everything to the disk.
+     */
+    public void flush() {
+        map.force();
+    }
+
+    /**
+     * Writes everything to the disk and closes the file.
+     * The spare room at the end is left there, since a file can't be shrunk while it's still mapped on some systems
+     * (Windows), and the mapping only goes away once the buffer is garbage collected. Opening the file works out where
+     * the chunks end from the header anyway.
+     */
+    @Override
+    public void close() {
+        try {
+            map.force();
+            map = null;
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes an array of IDs, run-length encoded or with a palette, whichever is smaller.
+     */
+    private static void encode(byte[] array, ByteArrayOutputStream out) {
+        byte[] runs = RunLength.encode(array);
+
+        // The IDs used, in order of first use, and each ID's place in that list
+        byte[] palette = new byte[16];
+        int[] place = new int[256];
+        Arrays.fill(place, -1);
+
+        int count = 0;
+        boolean fits = true;
+        for (byte b : array) {
+            if (place[b & 0xff] != -1)
+                continue;
+            if (count == palette.length) {
+                fits = false;
+                break;
+            }
+
+            place[b & 0xff] = count;
+            palette[count++] = b;
+        }
+
+        int bits = count <= 1 ? 0 : count <= 2 ? 1 : count <= 4 ? 2 : 4;
+        if (!fits || 2 + count + array.length * bits / 8 >= 1 + runs.length) {
+            out.write(RUN_LENGTH);
+            out.write(runs, 0, runs.length);
+            return;
+        }
+
+        out.write(PALETTE);
+        out.write(count);
+        out.write(palette, 0, count);
+
+        // Pack the places into bytes, lowest bits first
+        int perByte = bits == 0 ? 0 : 8 / bits;
+        for (int i = 0; perByte > 0 && i < array.length; i += perByte) {
+            int packed = 0;
+            for (int b = 0; b < perByte; b++)
+                packed |= place[array[i + b] & 0xff] << (b * bits);
+            out.write(packed);
+        }
+    }
+
+    /**
+     * Reads an array of IDs written by encode().
+     * @return The position in the encoded bytes just after it
+     */
+    private static int decode(byte[] encoded, int k, byte[] array) {
+        if (encoded[k++] == RUN_LENGTH)
+            return k + RunLength.decode(encoded, k, array);
+
+        int count = encoded[k++];
+        byte[] palette = Arrays.copyOfRange(encoded, k, k + count);
+        k += count;
+
+        if (count == 1) {
+            Arrays.fill(array, palette[0]);
+            return k;
+        }
+
+        int bits = count <= 2 ? 1 : count <= 4 ? 2 : 4;
+        int perByte = 8 / bits;
+        int mask = (1 << bits) - 1;
+        for (int i = 0; i < array.length; i += perByte) {
+            int packed = encoded[k++] & 0xff;
+            for (int b = 0; b < perByte; b++)
+                array[i + b] = palette[(packed >> (b * bits)) & mask];
+        }
+        return k;
+    }
+
+    /**
+     * Maps the first few sectors of the file, growing it if it's shorter.
+     */
+    private void mapSectors(int sectors) {
+        try {
+            if (map != null)
+                map.force();
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) sectors * SECTOR_BYTES);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int sectorOf(int index) { return map.getInt(8 + index * 8); }
+    private int lengthOf(int index) { return map.getInt(12 + index * 8); }
+    private static int sectorsFor(int bytes) { return (bytes + SECTOR_BYTES - 1) / SECTOR_BYTES; }
+}
@@ -0,0 +1,222 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A saved world: a folder of RegionFiles, each holding a square of chunks.
+ * Region files are only opened when one of their chunks is read or written, and the ones that haven't been used for a
+ * while are closed again, so saving or loading costs the same however big the world is: it only depends on how many
+ * chunks are touched.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class RegionStore implements Closeable {
+    // Most region files to keep open at once
+    private final int MAX_OPEN_REGIONS = 64;
+
+    private Path folder;
+
+    // Region (as region row << 32 | region column) -> its open file, least recently used first
+    private LinkedHashMap<Long, RegionFile> regions;
+
+    // Number of chunks read and written so far
+    private long readCount;
+    private long writeCount;
+
+    // Decor IDs of a chunk being read or written, laid out like the tile IDs (the way they're saved)
+    private final byte[] decorIds = new byte[World.CHUNK_SIZE * World.CHUNK_SIZE];
+
+    /**
+     * Opens a saved world, or starts a new one.
+     * @param folder The folder the region files are in. Created if it doesn't exist.
+     */
+    public RegionStore(Path folder) {
+        this.folder = folder;
+
+        try {
+            Files.createDirectories(folder);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        this.regions = new LinkedHashMap<Long, RegionFile>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, RegionFile> eldest) {
+                if (size() <= MAX_OPEN_REGIONS)
+                    return false;
+
+                eldest.getValue().close();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Starts a new world in an empty temporary folder, for runs that have to start from a freshly made cave and
+     * shouldn't leave anything behind. Call delete() when done with it.
+     */
+    public static RegionStore temporary() {
+        try {
+            return new RegionStore(Files.createTempDirectory("regions"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Getters **/
+    public Path getFolder() { return this.folder; }
+    public long getReadCount() { return this.readCount; }
+    public long getWriteCount() { return this.writeCount; }
+
+    /**
+     * Checks if a chunk has been saved.
+     * @param chunkI The column of the chunk
+     * @param chunkJ The row of the chunk
+     */
+    public boolean has(int chunkI, int chunkJ) {
+        RegionFile region = region(chunkI, chunkJ, false);
+        return region != null && region.has(indexInRegion(chunkI, chunkJ));
+    }
+
+    /**
+     * Reads a chunk.
+     * @param chunkI The column of the chunk
+     * @param chunkJ The row of the chunk
+     * @param tiles Where to put the tile IDs
+     * @param decor Where to put the decor IDs
+     * @return True if the chunk was read, false if it was never saved
+     */
+    public boolean read(int chunkI, int chunkJ, byte[] tiles, byte[] decor) {
+        RegionFile region = region(chunkI, chunkJ, false);
+        if (region == null || !region.read(indexInRegion(chunkI, chunkJ), tiles, decor))
+            return false;
+
+        readCount++;
+        return true;
+    }
+
+    /**
+     * Reads a chunk, with its decorations packed for a World.
+     * @param chunkI The column of the chunk
+     * @param chunkJ The row of the chunk
+     * @param tiles Where to put the tile IDs
+     * @return The decorations, or null if the chunk was never saved
+     */
+    public DecorChunk read(int chunkI, int chunkJ, byte[] tiles) {
+        return read(chunkI, chunkJ, tiles, decorIds) ? DecorChunk.of(decorIds) : null;
+    }
+
+    /**
+     * Writes a chunk.
+     * @param chunkI The column of the chunk
+     * @param chunkJ The row of the chunk
+     * @param tiles The tile IDs
+     * @param decor The decor IDs
+     */
+    public void write(int chunkI, int chunkJ, byte[] tiles, byte[] decor) {
+        region(chunkI, chunkJ, true).write(indexInRegion(chunkI, chunkJ), tiles, decor);
+        writeCount++;
+    }
+
+    /**
+     * Writes a loaded chunk of a World.
+     * @param world The world
+     * @param chunkI The column of the chunk
+     * @param chunkJ The row of the chunk, which has to be loaded
+     */
+    public void write(World world, int chunkI, int chunkJ) {
+        world.getChunkDecor(chunkI, chunkJ).toArray(decorIds);
+        write(chunkI, chunkJ, world.getChunkTiles(chunkI, chunkJ), decorIds);
+    }
+
+    /**
+     * Writes everything to the disk.
+     */
+    public void flush() {
+        for (RegionFile region : regions.values())
+            region.flush();
+    }
+
+    /**
+     * Writes everything to the disk and closes every region file.
+     */
+    @Override
+    public void close() {
+        for (RegionFile region : regions.values())
+            region.close();
+        regions.clear();
+    }
+
+    /**
+     * Closes every region file and deletes the folder along with everything saved in it.
+     */
+    public void delete() {
+        close();
+
+        IOException failure = deleteFolder();
+        if (failure != null) {
+            // On some systems (Windows) a file can't be deleted while it's still mapped, and a closed region file's
+            // mapping only goes away once its buffer is garbage collected.
+            System.gc();
+            failure = deleteFolder();
+        }
+
+        if (failure != null)
+            throw new UncheckedIOException(failure);
+    }
+
+    /**
+     * Tries to delete every file in the folder, then the folder.
+     * @return Why something couldn't be deleted, or null if everything was
+     */
+    private IOException deleteFolder() {
+        if (!Files.exists(folder))
+            return null;
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(folder)) {
+            for (Path f : files)
+                Files.deleteIfExists(f);
+        } catch (IOException e) {
+            return e;
+        }
+
+        try {
+            Files.deleteIfExists(folder);
+            return null;
+        } catch (IOException e) {
+            return e;
+        }
+    }
+
+    /**
+     * Gets the region file a chunk is in, opening it first if it isn't open.
+     * @param create Whether to create the file if it doesn't exist, otherwise null is returned
+     */
+    private RegionFile region(int chunkI, int chunkJ, boolean create) {
+        int regionI = Math.floorDiv(chunkI, RegionFile.REGION_SIZE);
+        int regionJ = Math.floorDiv(chunkJ, RegionFile.REGION_SIZE);
+        long key = ((long) regionJ << 32) | (regionI & 0xffffffffL);
+
+        RegionFile region = regions.get(key);
+        if (region == null) {
+            Path path = folder.resolve("r." + regionI + "." + regionJ + ".region");
+            if (!create && !Files.exists(path))
+                return null;
+
+            region = new RegionFile(path);
+            regions.put(key, region);
+        }
+
+        return region;
+    }
+
+    private static int indexInRegion(int chunkI, int chunkJ) {
+        return Math.floorMod(chunkJ, RegionFile.REGION_SIZE) * RegionFile.REGION_SIZE + Math.floorMod(chunkI, RegionFile.REGION_SIZE);
+    }
+}
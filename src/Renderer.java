@@ -0,0 +1,196 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+
+/**
+ * Draws a frame of the game from a Snapshot of the simulation.
+ * Doesn't depend on Swing, so a frame can be drawn into any Graphics, such as an offscreen image.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class Renderer {
+    private final Font GAME_FONT = Font.decode("Helvetica Neue-bold-20");
+
+    // Screen
+    private int screenWidth;
+    private int screenHeight;
+
+    // Number of block rows and columns to display
+    private int numBlockRows;
+    private int numBlockColumns;
+
+    // Map
+    private World world;
+    private int blockWidth;
+
+    // Sprites
+    private Player player;
+    private Enemies enemies;
+
+    // List of cutscenes, and their images
+    private ArrayList<String> cutscenes;
+    private int depthPerCutScene;
+    private Cutscenes cutsceneImages;
+
+    // Where the cutscene images go
+    private final int CUTSCENE_X = 150;
+    private final int CUTSCENE_Y = 0;
+
+    // Coordinates for the skip/continue button at the cutscenes
+    private final int[] skipBtn = new int[]{320, 500, 100, 30}; // [x, y, w, h]
+
+    // The darkness effect, and the cached chunk images of the map
+    private Lighting lighting;
+    private TileRenderer tileRenderer;
+
+    // Enemies and decorations, drawn out of the texture atlas a texture at a time
+    private SpriteBatch sprites;
+
+    // Decorations on the screen, three numbers each (see World.queryDecor)
+    private IntList visibleDecor = new IntList();
+
+    // Times each phase of a frame
+    private Profiler profiler = new Profiler();
+
+    /**
+     * Constructor
+     * @param world The game map, which has the decor too
+     * @param player The player
+     * @param enemies The enemies
+     * @param cutscenes The cutscene image names, in order
+     * @param depthPerCutScene The number of rows between cutscenes
+     * @param screenWidth The width of the screen
+     * @param screenHeight The height of the screen
+     */
+    public Renderer(World world, Player player, Enemies enemies,
+                    ArrayList<String> cutscenes, int depthPerCutScene, int screenWidth, int screenHeight) {
+        this.world = world;
+        this.blockWidth = world.getBlockWidth();
+        this.player = player;
+        this.enemies = enemies;
+        this.cutscenes = cutscenes;
+        this.depthPerCutScene = depthPerCutScene;
+
+        this.screenWidth = screenWidth;
+        this.screenHeight = screenHeight;
+        this.numBlockColumns = screenWidth / blockWidth;
+        this.numBlockRows = screenHeight / blockWidth;
+
+        int cutsceneSize = Math.min(screenWidth, screenHeight) - CUTSCENE_X;
+        this.cutsceneImages = new Cutscenes(cutscenes, depthPerCutScene, cutsceneSize, cutsceneSize);
+
+        this.lighting = new Lighting(screenWidth, screenHeight);
+        this.tileRenderer = new TileRenderer(world);
+        this.sprites = new SpriteBatch(false);
+    }
+
+    /** Getters **/
+    public int[] getSkipBtn() { return this.skipBtn; }
+    public Cutscenes getCutscenes() { return this.cutsceneImages; }
+    public TileRenderer getTileRenderer() { return this.tileRenderer; }
+
+    /** Setters **/
+    public void setProfiler(Profiler profiler) { this.profiler = profiler; }
+
+    /**
+     * Draws everything used in the game.
+     * @param g The Graphics Object
+     * @param snap The state to draw
+     * @param alpha How far between the snapshot's previous and current positions to draw things, from 0 to 1
+     */
+    public void paint(Graphics g, Snapshot snap, double alpha) {
+        long frameStart = profiler.start();
+
+        // Get the next cutscene ready in the background, and drop the ones already played
+        cutsceneImages.update(Math.floorDiv(snap.playerY, blockWidth), snap.curCutScene, snap.inCutScene);
+
+        // If a cutscene hasn't started
+        if (!snap.inCutScene) {
+            // Interpolate between the last two ticks, so movement looks smooth at any frame rate.
+            int[] camera = new int[]{
+                    Snapshot.lerp(snap.prevPlayerX, snap.playerX, alpha),
+                    Snapshot.lerp(snap.prevPlayerY, snap.playerY, alpha)
+            };
+
+            // Map, drawn a cached chunk at a time around the camera
+            tileRenderer.paint(g, screenWidth, screenHeight, camera);
+            long t = profiler.end(Profiler.TILES, frameStart);
+
+            // Enemies
+            for (int i = 0; i < snap.enemyCount; i++) {
+                sprites.add(enemies.getTexture(), Snapshot.lerp(snap.prevEnemyX[i], snap.enemyX[i], alpha) - camera[0] + screenWidth / 2,
+                        Snapshot.lerp(snap.prevEnemyY[i], snap.enemyY[i], alpha) - camera[1] + screenHeight / 2);
+            }
+            sprites.flush(g, enemies.getW() - 1, enemies.getW() - 1);
+            t = profiler.end(Profiler.ENEMY_SPRITES, t);
+
+            // Decorations, only looking at the ones on the screen
+            visibleDecor.clear();
+            world.queryDecor(Math.floorDiv(camera[0] - screenWidth / 2, blockWidth),
+                    Math.floorDiv(camera[1] - screenHeight / 2, blockWidth),
+                    Math.floorDiv(camera[0] + screenWidth / 2, blockWidth),
+                    Math.floorDiv(camera[1] + screenHeight / 2, blockWidth), visibleDecor);
+
+            for (int k = 0; k < visibleDecor.size(); k += 3) {
+                // Shift the display by the camera position to give the camera effect.
+                sprites.add(Decor.texture((byte) visibleDecor.get(k + 2)),
+                        visibleDecor.get(k) * blockWidth - camera[0] + screenWidth / 2,
+                        visibleDecor.get(k + 1) * blockWidth - camera[1] + screenHeight / 2);
+            }
+
+            // Making them slightly smaller than BLOCK_WIDTH to avoid glitchiness
+            sprites.flush(g, blockWidth - 1, blockWidth - 1);
+            t = profiler.end(Profiler.DECOR, t);
+
+            // Darkness effect over the map, enemies and decorations, but not the player or bullets
+            lighting.paint(g);
+            t = profiler.end(Profiler.LIGHTING, t);
+
+            // Player display
+            player.paint(g, screenWidth, screenHeight, snap.playerHealth);
+
+            // Bullets
+            for (int i = 0; i < snap.bulletCount; i++) {
+                Bullets.paint(g, Snapshot.lerp(snap.prevBulletX[i], snap.bulletX[i], alpha) - camera[0] + screenWidth / 2,
+                        Snapshot.lerp(snap.prevBulletY[i], snap.bulletY[i], alpha) - camera[1] + screenHeight / 2);
+            }
+
+            // Progress bar
+            int mapHeight = world.getHeight();
+
+            g.setColor(Color.WHITE);
+            g.fillRect(550, 50, 10, 100);
+
+            g.setColor(Color.GRAY);
+            g.fillRect(550, 50 + (camera[1] / blockWidth) * 100 / mapHeight, 10, 10);
+
+            g.setColor(Color.GREEN);
+            for (int i = 0; i < cutscenes.size(); i++) {
+                g.fillRect(550, 50 + ((depthPerCutScene * i * blockWidth) / blockWidth) * 100 / mapHeight, 10, 5);
+            }
+            profiler.end(Profiler.HUD, t);
+
+        } else {
+            // Background
+            g.setColor(Color.BLACK);
+            g.fillRect(0, 0, screenWidth, screenHeight);
+
+            // Cutscene image, already scaled. Left out for the few frames until it's decoded, if it isn't yet.
+            BufferedImage cutSceneImg = cutsceneImages.get(snap.curCutScene);
+            if (cutSceneImg != null)
+                g.drawImage(cutSceneImg, CUTSCENE_X, CUTSCENE_Y, null);
+
+            // Skip button
+            g.setColor(Color.GRAY);
+            g.fillRoundRect(skipBtn[0], skipBtn[1], skipBtn[2], skipBtn[3], 5, 5);
+
+            g.setColor(Color.WHITE);
+            g.setFont(GAME_FONT);
+            g.drawString("Continue", skipBtn[0] + 10, skipBtn[1] + 20);
+            profiler.end(Profiler.CUTSCENE, frameStart);
+        }
+
+        profiler.end(Profiler.FRAME, frameStart);
+    }
+}
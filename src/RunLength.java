@@ -0,0 +1,78 @@
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Run-length encoding for chunks of tile and decor IDs.
+ * Most of a chunk is long runs of cave, stone or no decor, so a chunk row shrinks to a small fraction of its size.
+ * Each run is stored as two bytes: its length minus one (so up to 256), then the value.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class RunLength {
+    /**
+     * Encodes some arrays one after another.
+     * @param arrays The arrays to encode
+     * @return The encoded bytes
+     */
+    public static byte[] encode(byte[]... arrays) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+
+        int run = 0;
+        byte value = 0;
+        for (byte[] array : arrays) {
+            for (byte b : array) {
+                if (run > 0 && (b != value || run == 256)) {
+                    out.write(run - 1);
+                    out.write(value);
+                    run = 0;
+                }
+
+                value = b;
+                run++;
+            }
+        }
+
+        if (run > 0) {
+            out.write(run - 1);
+            out.write(value);
+        }
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes bytes from encode() back into arrays of the same sizes that were encoded.
+     * @param encoded The encoded bytes
+     * @param arrays The arrays to fill in, in the same order they were encoded
+     */
+    public static void decode(byte[] encoded, byte[]... arrays) {
+        decode(encoded, 0, arrays);
+    }
+
+    /**
+     * Decodes bytes from encode(), starting partway into them.
+     * @param encoded The encoded bytes
+     * @param start Where in the encoded bytes to start
+     * @param arrays The arrays to fill in, in the same order they were encoded
+     * @return The number of encoded bytes used
+     */
+    public static int decode(byte[] encoded, int start, byte[]... arrays) {
+        int k = start; // Position in encoded
+        int left = 0; // Bytes left in the current run
+        byte value = 0;
+
+        for (byte[] array : arrays) {
+            for (int i = 0; i < array.length; i++) {
+                if (left == 0) {
+                    left = (encoded[k++] & 0xff) + 1;
+                    value = encoded[k++];
+                }
+
+                array[i] = value;
+                left--;
+            }
+        }
+
+        return k - start;
+    }
+}
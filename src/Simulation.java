@@ -0,0 +1,426 @@
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * All of the game logic, advanced one fixed-length tick at a time by the GameLoop.
+ * Inputs are queued from the Swing thread and applied at the start of the next tick,
+ * and a Snapshot of everything that moves is published at the end of every tick for the renderer.
+ * There are only ever three snapshots, passed around like triple buffers: one being filled in by the tick, the latest
+ * one published, and the one being drawn. Publishing swaps the one just filled in for the latest, and getSnapshot()
+ * swaps the one being drawn for the latest if there's a newer one, so neither side waits on the other and a tick
+ * makes no garbage however many enemies and bullets there are.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class Simulation {
+    // Map, and what keeps the part around the player loaded (null if the whole map is loaded)
+    private World world;
+    private WorldStreamer streamer;
+
+    // Sprites
+    private Player player;
+    private Bullets bullets;
+    private Explosions explosions;
+    private Enemies enemies;
+    private EnemyGrid enemyGrid;
+
+    // Enemies that chased the player last tick, and the ones chasing it this tick
+    private IntList lastChasers = new IntList();
+    private IntList chasers = new IntList();
+
+    // Screen size, which decides where bullets are aimed and how far they go
+    private int screenWidth;
+    private int screenHeight;
+
+    // Most bullets there can be at once
+    private final int MAX_BULLETS = 4096;
+
+    // Full-auto mining gun: fires every tick while the trigger is held, at the last place aimed at, and skips the reload
+    private boolean fullAuto;
+    private boolean triggerHeld;
+    private int aimX;
+    private int aimY;
+
+    // Cutscenes
+    private int numCutScenes;
+    private int depthPerCutScene;
+    private boolean startCutScene;
+    private int curCutScene;
+    private ArrayList<Integer> cutSceneDone = new ArrayList<Integer>();
+
+    // Size of a cell in the enemy grid, in pixels
+    private final int ENEMY_CELL_SIZE = 160;
+
+    // Inputs waiting for the next tick
+    private final ConcurrentLinkedQueue<GameInput> inputs = new ConcurrentLinkedQueue<GameInput>();
+
+    // The three snapshots, and which is which: the one being filled in, the one being drawn, and (in PUBLISHED_BITS)
+    // the latest published one, with FRESH set if it hasn't been drawn yet
+    private final Snapshot[] snapshots = {new Snapshot(), new Snapshot(), new Snapshot()};
+    private int filling = 0;
+    private int drawing = 1;
+    private final AtomicInteger published = new AtomicInteger(2);
+    private static final int PUBLISHED_BITS = 3;
+    private static final int FRESH = 4;
+
+    // The enemies on (or just off) the screen, found when publishing
+    private IntList visible = new IntList();
+
+    // Whether a cutscene was playing as of the last tick, for threads that don't draw
+    private volatile boolean publishedCutScene;
+
+    // Times each phase of a tick
+    private Profiler profiler = new Profiler();
+
+    // Number of ticks so far
+    private int tickCount;
+
+    // Writes down every input applied, if the session is being recorded
+    private Recording.Recorder recorder;
+
+    // The recorded session being played back instead of the live inputs, and the next of its inputs to apply
+    private Recording replay;
+    private int replayIndex;
+
+    /**
+     * Constructor
+     * @param world The game map
+     * @param player The player
+     * @param enemies The enemies
+     * @param screenWidth The width of the screen
+     * @param screenHeight The height of the screen
+     * @param numCutScenes The number of cutscenes
+     * @param depthPerCutScene The number of rows between cutscenes
+     */
+    public Simulation(World world, Player player, Enemies enemies,
+                      int screenWidth, int screenHeight, int numCutScenes, int depthPerCutScene) {
+        this.world = world;
+        this.player = player;
+        this.enemies = enemies;
+        this.bullets = new Bullets(MAX_BULLETS);
+        this.explosions = new Explosions();
+        this.enemyGrid = new EnemyGrid(enemies, world.getWidth() * world.getBlockWidth(),
+                world.getWindowRows() * world.getBlockWidth(), ENEMY_CELL_SIZE);
+
+        this.screenWidth = screenWidth;
+        this.screenHeight = screenHeight;
+
+        if (depthPerCutScene < 1)
+            throw new IllegalArgumentException("There has to be at least 1 row between cutscenes, not " + depthPerCutScene);
+
+        this.numCutScenes = numCutScenes;
+        this.depthPerCutScene = depthPerCutScene;
+        this.startCutScene = false;
+        this.curCutScene = 0;
+
+        publish(player.x, player.y);
+    }
+
+    /**
+     * Checks that a lab is deep enough for every cutscene to get its own row above it.
+     * @param labDepth The depth of the lab, in blocks
+     * @param numCutScenes The number of cutscenes
+     * @throws IllegalArgumentException If it isn't
+     */
+    public static void checkLabDepth(int labDepth, int numCutScenes) {
+        int min = WorldGenerator.MAX_LAB_HEIGHT + numCutScenes;
+        if (labDepth < min)
+            throw new IllegalArgumentException("The lab has to be at least " + min + " rows deep, not " + labDepth);
+    }
+
+    /** Getters **/
+    public Profiler getProfiler() { return this.profiler; }
+    public int getTickCount() { return this.tickCount; }
+
+    /** Setters **/
+    public void setProfiler(Profiler profiler) { this.profiler = profiler; }
+
+    /**
+     * Records every input from now on, along with the tick it's applied on.
+     * @param recorder Where to record to, or null to stop recording
+     */
+    public void setRecorder(Recording.Recorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Plays back a recorded session: its inputs are applied on the ticks they were recorded on, and live inputs are
+     * ignored. The simulation has to be set up the same way as when it was recorded and not have ticked yet.
+     * @param replay The recording
+     */
+    public void setReplay(Recording replay) {
+        this.replay = replay;
+        this.replayIndex = 0;
+    }
+
+    /**
+     * Checks if a cutscene was playing as of the last tick. Safe to call from any thread.
+     */
+    public boolean isInCutScene() {
+        return publishedCutScene;
+    }
+
+    /**
+     * Gets the latest snapshot to draw. It doesn't change until the next call, however many ticks go by.
+     * Only the thread that draws frames should call this: the snapshot it got last time is reused after it.
+     * @return The snapshot
+     */
+    public Snapshot getSnapshot() {
+        if ((published.get() & FRESH) != 0)
+            drawing = published.getAndSet(drawing) & PUBLISHED_BITS;
+        return snapshots[drawing];
+    }
+
+    /**
+     * Checks if a replay has reached the tick its recording ended on.
+     */
+    public boolean isReplayDone() {
+        return replay != null && tickCount >= replay.getEndTick();
+    }
+
+    /**
+     * Streams the map around the player instead of keeping all of it loaded, and loads the rows around the player now.
+     * @param streamer The streamer for the world
+     */
+    public void setStreamer(WorldStreamer streamer) {
+        this.streamer = streamer;
+        streamer.update(Math.floorDiv(player.y, world.getBlockWidth()), enemyGrid);
+        publish(player.x, player.y);
+    }
+
+    /**
+     * Queues an input to be applied on the next tick. Safe to call from any thread.
+     * @param input The input
+     */
+    public void addInput(GameInput input) {
+        inputs.add(input);
+    }
+
+    /**
+     * Advances the game by one tick.
+     */
+    public void tick() {
+        long tickStart = profiler.start();
+
+        // Remember where everything was, for interpolation
+        int prevPlayerX = player.x;
+        int prevPlayerY = player.y;
+
+        // Only enemies that chased the player last tick can have moved since.
+        for (int k = 0; k < lastChasers.size(); k++) {
+            int e = lastChasers.get(k);
+            enemies.prevX[e] = enemies.x[e];
+            enemies.prevY[e] = enemies.y[e];
+        }
+        lastChasers.clear();
+
+        // Load the rows the player is moving towards, and let go of the ones it left behind.
+        // Enemies can move to other indices here, which is why lastChasers is used up first.
+        if (streamer != null)
+            streamer.update(Math.floorDiv(player.y, world.getBlockWidth()), enemyGrid);
+        long t = profiler.end(Profiler.STREAMING, tickStart);
+
+        applyInputs();
+
+        // The game is paused while a cutscene is playing.
+        if (!startCutScene) {
+            // Let the liquids flow, on and off the screen
+            world.updateLiquids();
+            t = profiler.end(Profiler.LIQUIDS, t);
+
+            // Player movements
+            player.move(world);
+
+            // Constrain player movements
+            player.x = (Math.min(player.x, (world.getWidth() - 1) * world.getBlockWidth()));
+            player.x = (Math.max(player.x, 0));
+
+            player.checkEnemyCollisions(enemies, enemyGrid);
+            t = profiler.end(Profiler.PLAYER, t);
+
+            if (fullAuto && triggerHeld)
+                shoot(aimX, aimY);
+            handleBullets();
+            t = profiler.end(Profiler.BULLETS, t);
+
+            // Enemies only move when the player is within their chase range, so the rest can be skipped.
+            chasers.clear();
+            enemyGrid.query(player.x - Enemies.CHASE_DIST, player.y - Enemies.CHASE_DIST,
+                    player.x + Enemies.CHASE_DIST + 1, player.y + Enemies.CHASE_DIST + 1, chasers);
+
+            // Moving can run in parallel, but the grid has to be updated on this thread.
+            enemies.chase(chasers, player.x, player.y);
+            for (int k = 0; k < chasers.size(); k++)
+                enemyGrid.update(chasers.get(k));
+
+            IntList swap = lastChasers;
+            lastChasers = chasers;
+            chasers = swap;
+            t = profiler.end(Profiler.ENEMIES, t);
+        }
+
+        // If the player has reached a cutscene depth and the associated cutscene isn't finished
+        int playerRow = player.y / world.getBlockWidth();
+        if (playerRow % depthPerCutScene == 0 && !cutSceneDone.contains(playerRow)) {
+            // If all cutscenes haven't been finished
+            if (curCutScene < numCutScenes) {
+                startCutScene = true;
+                cutSceneDone.add(playerRow);
+            }
+        }
+
+        publish(prevPlayerX, prevPlayerY);
+        profiler.end(Profiler.PUBLISH, t);
+
+        tickCount++;
+        if (recorder != null)
+            recorder.setEndTick(tickCount);
+        profiler.end(Profiler.TICK, tickStart);
+    }
+
+    /**
+     * Applies every input queued since the last tick, or the ones recorded for this tick if a session is being
+     * replayed.
+     */
+    private void applyInputs() {
+        GameInput input;
+
+        if (replay != null) {
+            inputs.clear();
+            while (replayIndex < replay.size() && replay.getTick(replayIndex) == tickCount)
+                apply(replay.getInput(replayIndex++));
+            return;
+        }
+
+        while ((input = inputs.poll()) != null) {
+            if (recorder != null)
+                recorder.record(tickCount, input);
+            apply(input);
+        }
+    }
+
+    /**
+     * Applies an input.
+     * @param input The input
+     */
+    private void apply(GameInput input) {
+        switch (input.type) {
+            case GameInput.MOVE_UP:
+                player.setMoveUp(input.pressed);
+                break;
+            case GameInput.MOVE_LEFT:
+                player.setMoveLeft(input.pressed);
+                break;
+            case GameInput.MOVE_RIGHT:
+                player.setMoveRight(input.pressed);
+                break;
+            case GameInput.SHOOT:
+                if (player.getReload() <= 0) {
+                    shoot(input.x, input.y);
+                    player.setReload(100);
+                }
+                break;
+            case GameInput.BEAM:
+                if (player.getReload() <= 0) {
+                    beam(input.x, input.y);
+                    player.setReload(100);
+                }
+                break;
+            case GameInput.TRIGGER:
+                triggerHeld = input.pressed;
+                aimX = input.x;
+                aimY = input.y;
+                break;
+            case GameInput.FULL_AUTO:
+                fullAuto = input.pressed;
+                break;
+            case GameInput.CONTINUE:
+                if (startCutScene) {
+                    startCutScene = false;
+                    curCutScene++;
+                }
+                break;
+        }
+    }
+
+    /**
+     * Fires a bullet from the middle of the player, if there's room for one.
+     * @param screenX The x-coordinate on the screen it's aimed at
+     * @param screenY The y-coordinate on the screen it's aimed at
+     */
+    private void shoot(int screenX, int screenY) {
+        if (bullets.size() == bullets.getCapacity())
+            return;
+
+        // The player is always drawn in the middle of the screen
+        bullets.add(player.x + player.w / 2, player.y + player.w / 2,
+                screenX - (screenWidth / 2 + player.w / 2), screenY - (screenHeight / 2 + player.w / 2));
+    }
+
+    /**
+     * Fires an instant beam from the middle of the player, which blows up the first solid tile it reaches.
+     * It goes as far as a bullet could, to the corners of the screen around the player.
+     * @param screenX The x-coordinate on the screen it's aimed at
+     * @param screenY The y-coordinate on the screen it's aimed at
+     */
+    private void beam(int screenX, int screenY) {
+        int range = (int) Math.hypot(screenWidth / 2, screenHeight / 2);
+        bullets.beam(world, explosions, player.x + player.w / 2, player.y + player.w / 2,
+                screenX - (screenWidth / 2 + player.w / 2), screenY - (screenHeight / 2 + player.w / 2), range);
+    }
+
+    /**
+     * Handles the collisions & removal of bullets shot from the player's mining gun, then blows up everything they hit.
+     * Bullets go as far as the edge of the screen around the player.
+     */
+    public void handleBullets() {
+        bullets.update(world, explosions, player.x - screenWidth / 2, player.y - screenHeight / 2,
+                player.x + screenWidth / 2, player.y + screenHeight / 2);
+        explosions.apply(world);
+    }
+
+    /**
+     * Copies the current state into the snapshot being filled in, and swaps it for the latest one.
+     */
+    private void publish(int prevPlayerX, int prevPlayerY) {
+        Snapshot s = snapshots[filling];
+        s.time = System.nanoTime();
+
+        s.prevPlayerX = prevPlayerX;
+        s.prevPlayerY = prevPlayerY;
+        s.playerX = player.x;
+        s.playerY = player.y;
+        s.playerHealth = player.getHealth();
+
+        // Only the enemies on (or just off) the screen
+        visible.clear();
+        int blockWidth = world.getBlockWidth();
+        enemyGrid.query(player.x - screenWidth / 2 - blockWidth, player.y - screenHeight / 2 - blockWidth,
+                player.x + screenWidth / 2 + blockWidth, player.y + screenHeight / 2 + blockWidth, visible);
+
+        s.setCounts(visible.size(), bullets.size());
+        for (int k = 0; k < visible.size(); k++) {
+            int e = visible.get(k);
+            s.prevEnemyX[k] = enemies.prevX[e];
+            s.prevEnemyY[k] = enemies.prevY[e];
+            s.enemyX[k] = enemies.x[e];
+            s.enemyY[k] = enemies.y[e];
+        }
+
+        // A bullet was one step back last tick
+        for (int i = 0; i < bullets.size(); i++) {
+            s.prevBulletX[i] = (int) (bullets.x[i] - bullets.dx[i]);
+            s.prevBulletY[i] = (int) (bullets.y[i] - bullets.dy[i]);
+            s.bulletX[i] = (int) bullets.x[i];
+            s.bulletY[i] = (int) bullets.y[i];
+        }
+
+        s.inCutScene = startCutScene;
+        s.curCutScene = curCutScene;
+
+        publishedCutScene = startCutScene;
+        filling = published.getAndSet(filling | FRESH) & PUBLISHED_BITS;
+    }
+}
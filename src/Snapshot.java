@@ -0,0 +1,76 @@
+/**
+ * The positions of everything that moves, copied out of the Simulation at the end of a tick.
+ * The renderer only draws from snapshots, so it never sees the game halfway through a tick.
+ * Each snapshot keeps the positions from the tick before as well, so the renderer can interpolate between the two.
+ * The Simulation reuses the same few snapshots every tick, so the arrays can be longer than what's in them: only the
+ * first enemyCount and bulletCount of them are filled in.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class Snapshot {
+    // When the tick finished, from System.nanoTime()
+    public long time;
+
+    // Player
+    public int prevPlayerX;
+    public int prevPlayerY;
+    public int playerX;
+    public int playerY;
+    public double playerHealth;
+
+    // Enemies on the screen
+    public int enemyCount;
+    public int[] prevEnemyX = new int[0];
+    public int[] prevEnemyY = new int[0];
+    public int[] enemyX = new int[0];
+    public int[] enemyY = new int[0];
+
+    // Bullets
+    public int bulletCount;
+    public int[] prevBulletX = new int[0];
+    public int[] prevBulletY = new int[0];
+    public int[] bulletX = new int[0];
+    public int[] bulletY = new int[0];
+
+    // Cutscenes
+    public boolean inCutScene;
+    public int curCutScene;
+
+    /**
+     * Sets how many enemies and bullets are in the snapshot, making the arrays longer if they don't have room.
+     * They at least double when they grow, so a snapshot that's been reused for a while stops growing.
+     * @param enemies The number of enemies
+     * @param bullets The number of bullets
+     */
+    public void setCounts(int enemies, int bullets) {
+        enemyCount = enemies;
+        if (enemies > enemyX.length) {
+            int length = Math.max(enemies, 2 * enemyX.length);
+            prevEnemyX = new int[length];
+            prevEnemyY = new int[length];
+            enemyX = new int[length];
+            enemyY = new int[length];
+        }
+
+        bulletCount = bullets;
+        if (bullets > bulletX.length) {
+            int length = Math.max(bullets, 2 * bulletX.length);
+            prevBulletX = new int[length];
+            prevBulletY = new int[length];
+            bulletX = new int[length];
+            bulletY = new int[length];
+        }
+    }
+
+    /**
+     * Linear interpolation between two positions.
+     * @param prev The position at the previous tick
+     * @param cur The position at the latest tick
+     * @param alpha How far between the two ticks, from 0 to 1
+     * @return The interpolated position
+     */
+    public static int lerp(int prev, int cur, double alpha) {
+        return prev + (int) Math.round((cur - prev) * alpha);
+    }
+}
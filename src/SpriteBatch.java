@@ -0,0 +1,88 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Collects sprites that are all drawn at the same size, then draws them grouped by texture.
+ * Everything comes out of one copy of the texture atlas already scaled to that size (see Textures.sized), so drawing
+ * a whole group is one run of unscaled copies from the same part of the same image, instead of scaling each sprite
+ * and hopping between textures in whatever order the sprites were found.
+ * Sprites of different textures never overlap in the way it's used (tiles, decorations and enemies are each on a grid
+ * or the same size), so drawing them out of order looks the same.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class SpriteBatch {
+    // Whether every texture drawn is fully opaque, so it can be copied over whatever's there instead of blended
+    private final boolean opaque;
+
+    // Positions of the sprites waiting to be drawn, as x, y pairs, by texture number
+    private final IntList[] positions;
+
+    // Texture numbers that have at least one sprite waiting, in the order they were first added
+    private final IntList used;
+
+    /**
+     * Constructor. Loads the atlas if it isn't loaded already.
+     * @param opaque Whether every texture drawn has no transparent pixels, like the tiles. Any that it has come out
+     *               transparent instead of showing what's underneath.
+     */
+    public SpriteBatch(boolean opaque) {
+        this.opaque = opaque;
+
+        this.positions = new IntList[Textures.count()];
+        for (int k = 0; k < positions.length; k++)
+            positions[k] = new IntList();
+
+        this.used = new IntList();
+    }
+
+    /**
+     * Adds a sprite to draw on the next flush().
+     * @param texture The texture number
+     * @param x The x-coordinate to draw it at
+     * @param y The y-coordinate to draw it at
+     */
+    public void add(int texture, int x, int y) {
+        IntList list = positions[texture];
+        if (list.size() == 0)
+            used.add(texture);
+
+        list.add(x);
+        list.add(y);
+    }
+
+    /**
+     * Draws every sprite added since the last flush, a texture at a time, and empties the batch.
+     * @param g The Graphics Object
+     * @param w The width to draw each sprite at
+     * @param h The height to draw each sprite at
+     */
+    public void flush(Graphics g, int w, int h) {
+        if (used.size() == 0)
+            return;
+
+        BufferedImage atlas = Textures.sized(w, h);
+        Graphics2D g2 = (Graphics2D) g;
+
+        Composite composite = g2.getComposite();
+        if (opaque)
+            g2.setComposite(AlphaComposite.Src);
+
+        for (int u = 0; u < used.size(); u++) {
+            int texture = used.get(u);
+            IntList list = positions[texture];
+
+            for (int k = 0; k < list.size(); k += 2) {
+                int x = list.get(k);
+                int y = list.get(k + 1);
+                g2.drawImage(atlas, x, y, x + w, y + h, texture * w, 0, texture * w + w, h, null);
+            }
+
+            list.clear();
+        }
+
+        g2.setComposite(composite);
+        used.clear();
+    }
+}
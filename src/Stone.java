@@ -1,10 +0,0 @@
-/**
- * A block designed to resemble stone.
- * @author Gene Yang
- * @version May 24, 2023
- */
-public class Stone extends SolidBlock {
-    public Stone(int x, int y, int w){
-        super(x, y, w, "src/imgs/stone.png");
-    }
-}
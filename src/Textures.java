@@ -0,0 +1,167 @@
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Every texture used by a tile, decoration or sprite, all in one image: the texture atlas.
+ * The atlas and its manifest (where each texture is in it) are made by AtlasPacker and loaded from the classpath,
+ * so the game finds them wherever it's run from, even from a jar, and loading every texture is a single read.
+ * A texture is drawn by copying its part of the atlas, so drawing never switches between images.
+ * Textures are mostly drawn at one size (a tile, less a pixel), so a copy of the atlas with every texture already
+ * scaled to that size is made the first time it's asked for, and a SpriteBatch draws from that without any scaling.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class Textures {
+    // Name of the atlas and its manifest, as atlas/<name>.png and atlas/<name>.txt on the classpath
+    public static final String ATLAS_NAME = "textures";
+
+    // The atlas, in the screen's own pixel format if there is a screen
+    private static BufferedImage atlas;
+
+    // Where each texture is in the atlas, by texture number
+    private static int[] regionX;
+    private static int[] regionY;
+    private static int[] regionW;
+    private static int[] regionH;
+
+    // Texture name (the image name, without the ".png") -> texture number
+    private static final HashMap<String, Integer> numbers = new HashMap<String, Integer>();
+
+    // Width and height -> the atlas with every texture scaled to that size, side by side
+    private static final HashMap<Long, BufferedImage> sized = new HashMap<Long, BufferedImage>();
+
+    /**
+     * Loads the atlas, if it isn't loaded already.
+     */
+    public static synchronized void load() {
+        if (atlas != null)
+            return;
+
+        try (InputStream manifest = resource(ATLAS_NAME + ".txt");
+             InputStream image = resource(ATLAS_NAME + ".png")) {
+            BufferedReader lines = new BufferedReader(new InputStreamReader(manifest, StandardCharsets.UTF_8));
+            int count = 0;
+            int[][] regions = new int[4][32];
+
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#"))
+                    continue;
+
+                String[] parts = line.trim().split(" ");
+                if (count == regions[0].length)
+                    for (int r = 0; r < 4; r++)
+                        regions[r] = Arrays.copyOf(regions[r], count * 2);
+
+                for (int r = 0; r < 4; r++)
+                    regions[r][count] = Integer.parseInt(parts[r + 1]);
+                numbers.put(parts[0], count++);
+            }
+
+            regionX = Arrays.copyOf(regions[0], count);
+            regionY = Arrays.copyOf(regions[1], count);
+            regionW = Arrays.copyOf(regions[2], count);
+            regionH = Arrays.copyOf(regions[3], count);
+            BufferedImage decoded = ImageIO.read(image);
+            atlas = compatibleImage(decoded.getWidth(), decoded.getHeight(), Transparency.TRANSLUCENT);
+            Graphics2D g = atlas.createGraphics();
+            g.drawImage(decoded, 0, 0, null);
+            g.dispose();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Gets the number of a texture, for draw().
+     * @param name The name of the texture, which is the name of its image in the 'imgs' folder without the ".png"
+     * @return The texture number
+     */
+    public static int number(String name) {
+        load();
+
+        Integer number = numbers.get(name);
+        if (number == null)
+            throw new IllegalArgumentException("No texture called " + name + " in the atlas. Run AtlasPacker?");
+        return number;
+    }
+
+    /** Getters **/
+    public static int count() { load(); return regionX.length; }
+    public static BufferedImage getAtlas() { load(); return atlas; }
+
+    /**
+     * Draws a texture, scaled to a size.
+     * @param g The Graphics Object
+     * @param texture The texture number
+     * @param x The x-coordinate to draw it at
+     * @param y The y-coordinate to draw it at
+     * @param w The width to draw it at
+     * @param h The height to draw it at
+     */
+    public static void draw(Graphics g, int texture, int x, int y, int w, int h) {
+        g.drawImage(atlas, x, y, x + w, y + h, regionX[texture], regionY[texture],
+                regionX[texture] + regionW[texture], regionY[texture] + regionH[texture], null);
+    }
+
+    /**
+     * Gets the atlas with every texture scaled to one size, which is drawn from without scaling anything.
+     * Texture k is at (k * w, 0).
+     * @param w The width of each texture
+     * @param h The height of each texture
+     * @return The scaled atlas, made the first time this size is asked for
+     */
+    public static synchronized BufferedImage sized(int w, int h) {
+        load();
+
+        long key = ((long) w << 32) | h;
+        BufferedImage img = sized.get(key);
+
+        if (img == null) {
+            img = compatibleImage(w * count(), h, Transparency.TRANSLUCENT);
+            Graphics2D g = img.createGraphics();
+            for (int k = 0; k < count(); k++)
+                draw(g, k, k * w, 0, w, h);
+            g.dispose();
+
+            sized.put(key, img);
+        }
+
+        return img;
+    }
+
+    private static InputStream resource(String name) throws IOException {
+        InputStream in = Textures.class.getResourceAsStream("/atlas/" + name);
+        if (in == null)
+            throw new IOException("atlas/" + name + " isn't on the classpath. Run AtlasPacker?");
+        return in;
+    }
+
+    /**
+     * Makes an image in the screen's own pixel format if there is a screen, so drawing it can be accelerated.
+     * Without a screen it's a plain RGB image, with alpha unless it's opaque.
+     * @param width The width of the image
+     * @param height The height of the image
+     * @param transparency Transparency.OPAQUE, BITMASK or TRANSLUCENT
+     * @return The image
+     */
+    public static BufferedImage compatibleImage(int width, int height, int transparency) {
+        if (GraphicsEnvironment.isHeadless()) {
+            int type = transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+            return new BufferedImage(width, height, type);
+        }
+
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration()
+                .createCompatibleImage(width, height, transparency);
+    }
+}
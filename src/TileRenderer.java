@@ -0,0 +1,152 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Draws the map a whole chunk at a time.
+ * Each chunk near the camera is drawn once into its own image, and only redrawn when one of its tiles changes
+ * (the World bumps a chunk's version whenever that happens). A frame is then just a few chunk images instead of
+ * a fillRect and a drawImage for every tile on the screen.
+ * Drawing a chunk is one black fill for the outlines, then the tiles out of the texture atlas a tile type at a time.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class TileRenderer {
+    // Most chunk images to keep around. Chunks that haven't been on screen for a while are dropped first.
+    private final int MAX_CACHED_CHUNKS = 24;
+
+    private World world;
+    private int blockWidth;
+    private int chunkPixels;
+
+    // Chunk index -> drawn chunk, least recently used first
+    private LinkedHashMap<Long, CachedChunk> cache;
+
+    // Number of chunks drawn from scratch so far
+    private int rasterCount;
+
+    // Tiles of the chunk being drawn, grouped by texture
+    private SpriteBatch batch;
+
+    /**
+     * A chunk drawn into an image, and the version of the chunk it shows.
+     */
+    private static class CachedChunk {
+        BufferedImage img;
+        int version;
+    }
+
+    /**
+     * Constructor
+     * @param world The map to draw
+     */
+    public TileRenderer(World world) {
+        this.world = world;
+        this.blockWidth = world.getBlockWidth();
+        this.chunkPixels = World.CHUNK_SIZE * blockWidth;
+        this.batch = new SpriteBatch(true);
+
+        this.cache = new LinkedHashMap<Long, CachedChunk>(32, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedChunk> eldest) {
+                if (size() <= MAX_CACHED_CHUNKS)
+                    return false;
+
+                eldest.getValue().img.flush();
+                return true;
+            }
+        };
+    }
+
+    /** Getters **/
+    public int getRasterCount() { return this.rasterCount; }
+
+    /**
+     * Makes every cached chunk get drawn again the next time it's on screen, keeping its image.
+     */
+    public void invalidate() {
+        for (CachedChunk chunk : cache.values())
+            chunk.version = -1;
+    }
+
+    /**
+     * Draws every chunk that's on the screen.
+     * @param g The Graphics Object
+     * @param screenWidth The width of the screen
+     * @param screenHeight The height of the screen
+     * @param camera The camera position, in [x, y]
+     */
+    public void paint(Graphics g, int screenWidth, int screenHeight, int[] camera) {
+        // The world pixel shown at the top left of the screen
+        int left = camera[0] - screenWidth / 2;
+        int top = camera[1] - screenHeight / 2;
+
+        int minChunkI = Math.max(0, Math.floorDiv(left, chunkPixels));
+        int maxChunkI = Math.min(world.getChunkColumns() - 1, Math.floorDiv(left + screenWidth, chunkPixels));
+        int minChunkJ = Math.max(0, Math.floorDiv(top, chunkPixels));
+        int maxChunkJ = Math.min(world.getChunkRows() - 1, Math.floorDiv(top + screenHeight, chunkPixels));
+
+        for (int ci = minChunkI; ci <= maxChunkI; ci++) {
+            for (int cj = minChunkJ; cj <= maxChunkJ; cj++) {
+                // Rows that aren't loaded yet are just left black
+                if (!world.isLoaded(cj))
+                    continue;
+
+                g.drawImage(chunkImage(ci, cj), ci * chunkPixels - left, cj * chunkPixels - top, null);
+            }
+        }
+    }
+
+    /**
+     * Gets the image of a chunk, drawing it first if it isn't cached or is out of date.
+     */
+    private BufferedImage chunkImage(int ci, int cj) {
+        long key = (long) cj * world.getChunkColumns() + ci;
+        CachedChunk chunk = cache.get(key);
+
+        // Read the version before drawing, so a change made while drawing gets picked up next frame.
+        int version = world.getChunkVersion(ci, cj);
+
+        if (chunk == null) {
+            chunk = new CachedChunk();
+            chunk.img = Textures.compatibleImage(chunkPixels, chunkPixels, Transparency.BITMASK);
+            cache.put(key, chunk);
+        } else if (chunk.version == version) {
+            return chunk.img;
+        }
+
+        raster(chunk.img, ci, cj);
+        chunk.version = version;
+        rasterCount++;
+
+        return chunk.img;
+    }
+
+    /**
+     * Draws the tiles of a chunk into its image. Anything past the edge of the map is left transparent.
+     */
+    private void raster(BufferedImage img, int ci, int cj) {
+        Graphics2D g = img.createGraphics();
+        g.setComposite(AlphaComposite.Clear);
+        g.fillRect(0, 0, chunkPixels, chunkPixels);
+        g.setComposite(AlphaComposite.SrcOver);
+
+        int maxI = Math.min((ci + 1) * World.CHUNK_SIZE, world.getWidth());
+        int maxJ = Math.min((cj + 1) * World.CHUNK_SIZE, world.getHeight());
+
+        // Black outline of every tile at once. Each tile is drawn slightly smaller than BLOCK_WIDTH over it.
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, (maxI - ci * World.CHUNK_SIZE) * blockWidth, (maxJ - cj * World.CHUNK_SIZE) * blockWidth);
+
+        for (int i = ci * World.CHUNK_SIZE; i < maxI; i++) {
+            for (int j = cj * World.CHUNK_SIZE; j < maxJ; j++) {
+                batch.add(Tiles.texture(world.get(i, j)), i * blockWidth - ci * chunkPixels, j * blockWidth - cj * chunkPixels);
+            }
+        }
+
+        batch.flush(g, blockWidth - 1, blockWidth - 1);
+        g.dispose();
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * The IDs of every kind of map tile, along with tables of their properties.
+ * The World only stores these IDs, so anything that needs to know about a tile looks it up here by ID
+ * (e.g. Tiles.SOLID[id]) instead of checking the class of a Block.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class Tiles {
+    // Tile IDs
+    public static final byte CAVE = 0;
+    public static final byte STONE = 1;
+    public static final byte DIRT = 2;
+    public static final byte ACID = 3;
+    public static final byte WATER = 4;
+    public static final byte BARRIER = 5;
+    public static final byte LAB_1 = 6;
+    public static final byte LAB_2 = 7;
+    public static final byte LAB_3 = 8;
+
+    // Number of tile types
+    public static final int COUNT = 9;
+
+    // Property tables, indexed by tile ID
+    public static final boolean[] SOLID = new boolean[COUNT]; // Collides with the player and stops bullets
+    public static final boolean[] LIQUID = new boolean[COUNT]; // Flows, and slows down the player
+    public static final boolean[] IMMOVABLE = new boolean[COUNT]; // Can't be destroyed by the mining gun
+    public static final boolean[] DAMAGING = new boolean[COUNT]; // Hurts the player on contact
+    public static final int[] UPDATE_RATE = new int[COUNT]; // Ticks between each flow of a liquid
+    public static final String[] TEXTURE = new String[COUNT]; // Texture name, as used by Textures
+
+    // The properties the player's collisions need, packed into one byte per tile ID so they're a single lookup
+    public static final int FLAG_SOLID = 1;
+    public static final int FLAG_LIQUID = 2;
+    public static final int FLAG_DAMAGING = 4;
+    public static final byte[] FLAGS = new byte[COUNT];
+
+    // Atlas texture numbers by tile ID, filled in the first time a tile is painted
+    private static int[] textures;
+
+    static {
+        TEXTURE[CAVE] = "caveBackground";
+
+        TEXTURE[STONE] = "stone";
+        SOLID[STONE] = true;
+
+        TEXTURE[DIRT] = "dirt";
+        SOLID[DIRT] = true;
+
+        TEXTURE[ACID] = "acid";
+        LIQUID[ACID] = true;
+        DAMAGING[ACID] = true;
+        UPDATE_RATE[ACID] = 50;
+
+        TEXTURE[WATER] = "water";
+        LIQUID[WATER] = true;
+        UPDATE_RATE[WATER] = 25;
+
+        // The barrier and lab blocks are solid blocks that can't be destroyed.
+        TEXTURE[BARRIER] = "barrier";
+        TEXTURE[LAB_1] = "lab_block_1";
+        TEXTURE[LAB_2] = "lab_block_2";
+        TEXTURE[LAB_3] = "lab_block_3";
+        for (byte id : new byte[]{BARRIER, LAB_1, LAB_2, LAB_3}) {
+            SOLID[id] = true;
+            IMMOVABLE[id] = true;
+        }
+
+        for (int id = 0; id < COUNT; id++)
+            FLAGS[id] = (byte) ((SOLID[id] ? FLAG_SOLID : 0) | (LIQUID[id] ? FLAG_LIQUID : 0) | (DAMAGING[id] ? FLAG_DAMAGING : 0));
+    }
+
+    /**
+     * Gets the atlas texture number of a tile type.
+     * @param id The tile ID
+     * @return The texture number, for Textures.draw() or a SpriteBatch
+     */
+    public static int texture(byte id) {
+        if (textures == null) {
+            int[] loaded = new int[COUNT];
+            for (int i = 0; i < COUNT; i++)
+                loaded[i] = Textures.number(TEXTURE[i]);
+
+            textures = loaded;
+        }
+
+        return textures[id];
+    }
+}
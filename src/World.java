@@ -0,0 +1,377 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * The game map, stored as one byte per tile instead of one Block object per tile.
+ * Tiles are grouped into square chunks, so neighbouring tiles sit next to each other in memory.
+ * The position of a tile is just its index, and everything else about it is looked up in Tiles.
+ * Tiles can also have a decoration. Most don't, so each chunk keeps just the ones it has in a DecorChunk.
+ *
+ * Only a window of chunk rows has to be in memory at once. Chunk rows live in a ring of slots (chunk row j goes in slot
+ * j % slots), and are loaded and unloaded by a WorldStreamer as the player moves, so a map can be as deep as you like.
+ * A small map can just keep every chunk row loaded.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class World {
+    // Chunks are CHUNK_SIZE x CHUNK_SIZE tiles. Must be a power of 2.
+    public static final int CHUNK_SIZE = 16;
+    private static final int CHUNK_SHIFT = 4;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // Size of the map, in blocks
+    private final int width;
+    private final int height;
+
+    // Width of a single block, in pixels
+    private final int blockWidth;
+
+    // Size of the map, in chunks
+    private final int chunkColumns;
+    private final int chunkRows;
+
+    // Number of chunk rows that can be loaded at once (a power of 2), and the chunk row in each slot (-1 if empty)
+    private final int slots;
+    private final int slotMask;
+    private final int[] slotRow;
+
+    // Tile IDs, [slot * chunkColumns + chunk column][index within chunk], and decorations, [slot * chunkColumns + chunk
+    // column]
+    private final byte[][] chunks;
+    private final DecorChunk[] decor;
+
+    // Bumped every time a tile in the chunk changes, so the renderer knows which chunks to redraw and the streamer knows
+    // which ones to save
+    private final AtomicIntegerArray chunkVersions;
+
+    // Keeps track of the liquids that are still flowing
+    private final LiquidSim liquids;
+
+    /**
+     * Creates a map filled with cave background, with every chunk row loaded.
+     * @param width The width of the map, in blocks
+     * @param height The height of the map, in blocks
+     * @param blockWidth The width of a block, in pixels
+     */
+    public World(int width, int height, int blockWidth) {
+        this(width, height, blockWidth, (height + CHUNK_MASK) >> CHUNK_SHIFT);
+
+        for (int j = 0; j < chunkRows; j++) {
+            byte[][] rowTiles = new byte[chunkColumns][CHUNK_SIZE * CHUNK_SIZE];
+            DecorChunk[] rowDecor = new DecorChunk[chunkColumns];
+            Arrays.fill(rowDecor, DecorChunk.EMPTY);
+            load(j, rowTiles, rowDecor);
+        }
+    }
+
+    /**
+     * Creates a map with nothing loaded yet, which can hold a window of chunk rows at once.
+     * @param width The width of the map, in blocks
+     * @param height The height of the map, in blocks
+     * @param blockWidth The width of a block, in pixels
+     * @param windowChunkRows The number of chunk rows to make room for. Rounded up to a power of 2.
+     */
+    public World(int width, int height, int blockWidth, int windowChunkRows) {
+        this.width = width;
+        this.height = height;
+        this.blockWidth = blockWidth;
+
+        this.chunkColumns = (width + CHUNK_MASK) >> CHUNK_SHIFT;
+        this.chunkRows = (height + CHUNK_MASK) >> CHUNK_SHIFT;
+
+        this.slots = Integer.highestOneBit(Math.max(1, windowChunkRows - 1)) << 1;
+        this.slotMask = slots - 1;
+        this.slotRow = new int[slots];
+        Arrays.fill(slotRow, -1);
+
+        this.chunks = new byte[slots * chunkColumns][];
+        this.decor = new DecorChunk[slots * chunkColumns];
+        this.chunkVersions = new AtomicIntegerArray(slots * chunkColumns);
+
+        this.liquids = new LiquidSim(this);
+    }
+
+    /** Getters **/
+    public int getWidth() { return this.width; }
+    public int getHeight() { return this.height; }
+    public int getBlockWidth() { return this.blockWidth; }
+    public LiquidSim getLiquids() { return this.liquids; }
+    public int getChunkColumns() { return this.chunkColumns; }
+    public int getChunkRows() { return this.chunkRows; }
+    public int getWindowRows() { return this.slots * CHUNK_SIZE; }
+    public int getSlots() { return this.slots; }
+
+    /**
+     * Gets the version of a chunk, which changes every time one of its tiles or decorations does, or it's loaded or
+     * unloaded.
+     * @param chunkI The column of the chunk
+     * @param chunkJ The row of the chunk
+     * @return The version number
+     */
+    public int getChunkVersion(int chunkI, int chunkJ) {
+        return chunkVersions.get((chunkJ & slotMask) * chunkColumns + chunkI);
+    }
+
+    /**
+     * Checks if a chunk row is in memory.
+     * @param chunkJ The row of the chunk
+     * @return True if the chunk row is loaded, false otherwise.
+     */
+    public boolean isLoaded(int chunkJ) {
+        return chunkJ >= 0 && slotRow[chunkJ & slotMask] == chunkJ;
+    }
+
+    /**
+     * Gets the first loaded row of tiles. The loaded rows are always one unbroken range.
+     * @return The row (y, in blocks), or 0 if nothing is loaded
+     */
+    public int getTopRow() {
+        int top = Integer.MAX_VALUE;
+        for (int s = 0; s < slots; s++)
+            if (slotRow[s] >= 0)
+                top = Math.min(top, slotRow[s]);
+
+        return top == Integer.MAX_VALUE ? 0 : top << CHUNK_SHIFT;
+    }
+
+    /**
+     * Gets the row just after the last loaded row of tiles.
+     * @return The row (y, in blocks), or 0 if nothing is loaded
+     */
+    public int getBottomRow() {
+        int bottom = -1;
+        for (int s = 0; s < slots; s++)
+            bottom = Math.max(bottom, slotRow[s]);
+
+        return (int) Math.min(height, (long) (bottom + 1) << CHUNK_SHIFT);
+    }
+
+    /**
+     * Puts a chunk row into memory, in place of whatever was in its slot.
+     * Every liquid in and around it is woken up.
+     * @param chunkJ The row of the chunk
+     * @param rowTiles The tile IDs of each chunk in the row, [chunk column][index within chunk]
+     * @param rowDecor The decorations of each chunk in the row, [chunk column]
+     */
+    public void load(int chunkJ, byte[][] rowTiles, DecorChunk[] rowDecor) {
+        int slot = chunkJ & slotMask;
+        for (int i = 0; i < chunkColumns; i++) {
+            chunks[slot * chunkColumns + i] = rowTiles[i];
+            decor[slot * chunkColumns + i] = rowDecor[i];
+        }
+        slotRow[slot] = chunkJ;
+
+        // Publishes the new chunks to the renderer, too
+        for (int i = 0; i < chunkColumns; i++)
+            chunkVersions.incrementAndGet(slot * chunkColumns + i);
+
+        liquids.wakeRows((chunkJ << CHUNK_SHIFT) - 1, (chunkJ + 1) << CHUNK_SHIFT);
+    }
+
+    /**
+     * Takes a chunk row out of memory. Anything that changed in it should be saved first.
+     * @param chunkJ The row of the chunk
+     */
+    public void unload(int chunkJ) {
+        int slot = chunkJ & slotMask;
+        if (slotRow[slot] != chunkJ)
+            return;
+
+        slotRow[slot] = -1;
+        for (int i = 0; i < chunkColumns; i++)
+            chunkVersions.incrementAndGet(slot * chunkColumns + i);
+    }
+
+    /**
+     * Gets the tile IDs of a loaded chunk, as an array indexed by (j % CHUNK_SIZE) * CHUNK_SIZE + (i % CHUNK_SIZE).
+     * @param chunkI The column of the chunk
+     * @param chunkJ The row of the chunk
+     */
+    public byte[] getChunkTiles(int chunkI, int chunkJ) {
+        return chunks[(chunkJ & slotMask) * chunkColumns + chunkI];
+    }
+
+    /**
+     * Gets the decorations of a loaded chunk, positioned like the tile IDs.
+     * @param chunkI The column of the chunk
+     * @param chunkJ The row of the chunk
+     */
+    public DecorChunk getChunkDecor(int chunkI, int chunkJ) {
+        return decor[(chunkJ & slotMask) * chunkColumns + chunkI];
+    }
+
+    /**
+     * Replaces the decorations of a loaded chunk, like writing straight into the chunk arrays: the chunk's version
+     * isn't changed, so call markChanged() after.
+     * @param chunkI The column of the chunk
+     * @param chunkJ The row of the chunk
+     * @param chunkDecor The new decorations
+     */
+    public void setChunkDecor(int chunkI, int chunkJ, DecorChunk chunkDecor) {
+        decor[(chunkJ & slotMask) * chunkColumns + chunkI] = chunkDecor;
+    }
+
+    /**
+     * Checks if a position is on the map and loaded.
+     * @param i The column of the position (x, in blocks)
+     * @param j The row of the position (y, in blocks)
+     * @return True if the position is on the map, false otherwise.
+     */
+    public boolean inBounds(int i, int j) {
+        return i >= 0 && i < this.width && j >= 0 && j < this.height && slotRow[(j >> CHUNK_SHIFT) & slotMask] == j >> CHUNK_SHIFT;
+    }
+
+    /**
+     * Gets the tile at a position. The position must be on the map and loaded.
+     * @param i The column of the position (x, in blocks)
+     * @param j The row of the position (y, in blocks)
+     * @return The tile ID
+     */
+    public byte get(int i, int j) {
+        return chunks[chunkIndex(i, j)][((j & CHUNK_MASK) << CHUNK_SHIFT) | (i & CHUNK_MASK)];
+    }
+
+    /**
+     * Sets the tile at a position. The position must be on the map and loaded.
+     * Any liquid that could flow differently because of the change is woken up.
+     * @param i The column of the position (x, in blocks)
+     * @param j The row of the position (y, in blocks)
+     * @param id The tile ID
+     */
+    public void set(int i, int j, byte id) {
+        setWithoutWaking(i, j, id);
+        liquids.wakeAround(i, j);
+    }
+
+    /**
+     * Sets the tile at a position without waking any liquids, for the liquid simulation's parallel mode.
+     * @param i The column of the position (x, in blocks)
+     * @param j The row of the position (y, in blocks)
+     * @param id The tile ID
+     */
+    public void setWithoutWaking(int i, int j, byte id) {
+        int chunk = chunkIndex(i, j);
+        chunks[chunk][((j & CHUNK_MASK) << CHUNK_SHIFT) | (i & CHUNK_MASK)] = id;
+        chunkVersions.incrementAndGet(chunk);
+    }
+
+    /**
+     * Gets the decoration at a position. The position must be on the map and loaded.
+     * @param i The column of the position (x, in blocks)
+     * @param j The row of the position (y, in blocks)
+     * @return The decor ID, or Decor.NONE
+     */
+    public byte getDecor(int i, int j) {
+        return decor[chunkIndex(i, j)].get(((j & CHUNK_MASK) << CHUNK_SHIFT) | (i & CHUNK_MASK));
+    }
+
+    /**
+     * Sets the decoration at a position. The position must be on the map and loaded.
+     * @param i The column of the position (x, in blocks)
+     * @param j The row of the position (y, in blocks)
+     * @param id The decor ID, or Decor.NONE to remove it
+     */
+    public void setDecor(int i, int j, byte id) {
+        int chunk = chunkIndex(i, j);
+        decor[chunk] = decor[chunk].with(((j & CHUNK_MASK) << CHUNK_SHIFT) | (i & CHUNK_MASK), id);
+        chunkVersions.incrementAndGet(chunk);
+    }
+
+    /**
+     * Finds every decoration in a rectangle, only looking at the chunks it overlaps and only at the rows of each chunk
+     * that are in it. Anything off the map or not loaded is skipped.
+     * @param minI The first column
+     * @param minJ The first row
+     * @param maxI The last column
+     * @param maxJ The last row
+     * @param out Where to add the column, the row and the decor ID of each decoration, three numbers each
+     */
+    public void queryDecor(int minI, int minJ, int maxI, int maxJ, IntList out) {
+        minI = Math.max(minI, 0);
+        maxI = Math.min(maxI, this.width - 1);
+        minJ = Math.max(minJ, 0);
+        maxJ = Math.min(maxJ, this.height - 1);
+        if (minI > maxI || minJ > maxJ)
+            return;
+
+        for (int cj = minJ >> CHUNK_SHIFT; cj <= maxJ >> CHUNK_SHIFT; cj++) {
+            if (!isLoaded(cj))
+                continue;
+
+            // The rows of this chunk that are in the rectangle, as positions in the chunk
+            int first = (Math.max(minJ, cj << CHUNK_SHIFT) & CHUNK_MASK) << CHUNK_SHIFT;
+            int last = ((Math.min(maxJ, (cj << CHUNK_SHIFT) + CHUNK_MASK) & CHUNK_MASK) << CHUNK_SHIFT) | CHUNK_MASK;
+
+            for (int ci = minI >> CHUNK_SHIFT; ci <= maxI >> CHUNK_SHIFT; ci++) {
+                // Read once, since a blast can swap in a new one on the game loop thread
+                DecorChunk chunk = decor[(cj & slotMask) * chunkColumns + ci];
+
+                for (int k = chunk.indexOf(first); k < chunk.size() && chunk.getPosition(k) <= last; k++) {
+                    int i = (ci << CHUNK_SHIFT) | (chunk.getPosition(k) & CHUNK_MASK);
+                    if (i < minI || i > maxI)
+                        continue;
+
+                    out.add(i);
+                    out.add((cj << CHUNK_SHIFT) | (chunk.getPosition(k) >> CHUNK_SHIFT));
+                    out.add(chunk.getId(k));
+                }
+            }
+        }
+    }
+
+    /**
+     * Tells everything that watches the map that a rectangle of it was changed straight in the chunk arrays (like
+     * Explosions does): every chunk it overlaps gets one new version, so the renderer redraws it, and the liquids in and
+     * around it are woken up. Anything off the map or not loaded is ignored.
+     * @param minI The first column
+     * @param minJ The first row
+     * @param maxI The last column
+     * @param maxJ The last row
+     */
+    public void markChanged(int minI, int minJ, int maxI, int maxJ) {
+        minI = Math.max(minI, 0);
+        maxI = Math.min(maxI, this.width - 1);
+        minJ = Math.max(minJ, 0);
+        maxJ = Math.min(maxJ, this.height - 1);
+        if (minI > maxI || minJ > maxJ)
+            return;
+
+        for (int cj = minJ >> CHUNK_SHIFT; cj <= maxJ >> CHUNK_SHIFT; cj++) {
+            if (!isLoaded(cj))
+                continue;
+            for (int ci = minI >> CHUNK_SHIFT; ci <= maxI >> CHUNK_SHIFT; ci++)
+                chunkVersions.incrementAndGet((cj & slotMask) * chunkColumns + ci);
+        }
+
+        // Liquid above or beside a changed tile could flow into it now
+        liquids.wakeRect(minI - 1, minJ - 1, maxI + 1, maxJ);
+    }
+
+    // Index of the chunk a position is in
+    private int chunkIndex(int i, int j) {
+        return ((j >> CHUNK_SHIFT) & slotMask) * chunkColumns + (i >> CHUNK_SHIFT);
+    }
+
+    /** Tile properties at a position **/
+    public boolean isSolid(int i, int j) { return Tiles.SOLID[get(i, j)]; }
+    public boolean isLiquid(int i, int j) { return Tiles.LIQUID[get(i, j)]; }
+    public boolean isImmovable(int i, int j) { return Tiles.IMMOVABLE[get(i, j)]; }
+    public boolean isDamaging(int i, int j) { return Tiles.DAMAGING[get(i, j)]; }
+
+    /**
+     * Gets the Tiles.FLAGS of the tile at a position, or no flags at all if it's off the map or not loaded.
+     * @param i The column of the position (x, in blocks)
+     * @param j The row of the position (y, in blocks)
+     */
+    public int flagsAt(int i, int j) {
+        return inBounds(i, j) ? Tiles.FLAGS[get(i, j)] : 0;
+    }
+
+    /**
+     * Lets the liquids flow, anywhere on the loaded part of the map.
+     */
+    public void updateLiquids() {
+        liquids.update();
+    }
+}
@@ -0,0 +1,687 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * Terraforms the map: patches of stone, dirt and liquids made with a random floodfill, decorations, barriers,
+ * enemies and the mysterious lab at the bottom.
+ *
+ * The map is made one chunk row at a time, and every chunk row only depends on the seed and where it is, so rows can be
+ * made in any order, on any number of threads at once, and made again after being thrown away.
+ * Every chunk gets its own SplittableRandom for each thing it decides (where patches of each tile type start, its
+ * decorations), seeded from the world seed and where the chunk is, so no random numbers are shared between chunks or
+ * threads.
+ * The floodfill works through a queue instead of recursing.
+ *
+ * Floodfill patches spill over into the chunk rows around the one they start in, as far as their depth, so each patch
+ * is only grown once: by the chunk row it starts in, into a Patches that keeps every tile it covered, a bitset per
+ * tile type. Patches only depend on the seed and the chunk row, so any thread can grow them, and the ones grown lately
+ * are kept in a small cache that the neighbouring rows read from (grown again if they've been pushed out). Making a
+ * chunk row just copies in the parts of its neighbours' patches that reach it, a tile type at a time, so it costs
+ * about the area of its own patches however deep they go: acid lakes 100 steps deep on a map 750 blocks wide take
+ * about 15 ms a row (GenerationBenchmark holds it to a budget). Where patches of different types overlap, the later
+ * type in BLOCK_TYPES is on top, in every chunk row.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class WorldGenerator {
+    // The height bounds for the mysterious lab at the end.
+    public static final int MIN_LAB_HEIGHT = 10;
+    public static final int MAX_LAB_HEIGHT = 15;
+
+    // How many enemies to spawn per row of blocks, in the lower half of the cave (the original 50 enemies in 250 rows)
+    private static final double ENEMIES_PER_ROW = 0.2;
+
+    // Map setup
+    private int mapWidth;
+    private int mapHeight;
+    private int blockWidth;
+    private int chunkColumns;
+    private long seed;
+
+    // Data associated with different block types, by tile ID
+    // Java has made me overly descriptive for variable names
+    private static final byte[] BLOCK_TYPES = {Tiles.STONE, Tiles.DIRT, Tiles.ACID, Tiles.WATER};
+    private double[] blockVarietyProb;
+    private int[] blockTerraformMaxDepth;
+    private int maxTerraformDepth;
+
+    // Data associated with different decor types, by decor ID, in the order they get a chance to be placed
+    private static final byte[] DECOR_TYPES = {Decor.STALAGMITE, Decor.STALACTITE, Decor.BAT, Decor.FLOWER, Decor.VINE};
+    private double[] decorBlockVarietyProb;
+
+    // Height of the lab in every column, and its blocks from the bottom up, as [column * MAX_LAB_HEIGHT + height]
+    private int[] labHeight;
+    private byte[] labTiles;
+
+    // Rows of the canvas: the chunk row being made, plus one row above and below for the decor to look at
+    private static final int CANVAS_ROWS = World.CHUNK_SIZE + 2;
+
+    // Every thread that makes rows gets its own canvas
+    private final ThreadLocal<Canvas> canvases = ThreadLocal.withInitial(Canvas::new);
+
+    // Patches grown lately, each in slot (chunk row & (length - 1)), so the rows around them can use them again
+    private AtomicReferenceArray<Patches> patchCache;
+
+    // Runs terraform() in parallel, or null to make every row on the calling thread
+    private ForkJoinPool pool;
+
+    // Chunk rows each thread in terraform() takes at a time
+    private static final int TERRAFORM_ROWS = 2;
+
+    // What each random number generator is for, so different choices in the same chunk don't match
+    private static final long START = 1;
+    private static final long DECOR = 3;
+    private static final long LAB = 4;
+    private static final long ENEMY = 5;
+
+    /**
+     * A chunk row of the map, ready to be loaded into a World.
+     */
+    public static class ChunkRow {
+        // Tile IDs, [chunk column][index within chunk], and decorations, [chunk column]
+        public final byte[][] tiles;
+        public final DecorChunk[] decor;
+
+        public ChunkRow(byte[][] tiles, DecorChunk[] decor) {
+            this.tiles = tiles;
+            this.decor = decor;
+        }
+    }
+
+    /**
+     * Constructor. terraform() uses every core until setThreads() says otherwise.
+     * @param world The map to make rows for. Only its size is used.
+     * @param seed The seed for everything random
+     */
+    public WorldGenerator(World world, long seed) {
+        this.mapWidth = world.getWidth();
+        this.mapHeight = world.getHeight();
+        this.blockWidth = world.getBlockWidth();
+        this.chunkColumns = world.getChunkColumns();
+        this.seed = seed;
+        this.pool = ForkJoinPool.commonPool();
+
+        initInfo();
+        initLab();
+        resetPatches();
+    }
+
+    /** Getters **/
+    public int getThreads() { return pool == null ? 1 : pool.getParallelism(); }
+    public int getTerraformDepth(byte type) { return this.blockTerraformMaxDepth[type]; }
+
+    /**
+     * Sets how many steps patches of a tile type spread from where they start. Not while rows are being made.
+     * A chunk row's cost goes up with the area of its patches (see the class comment).
+     * @param type The tile ID of the patches
+     * @param depth The maximum number of steps
+     */
+    public void setTerraformDepth(byte type, int depth) {
+        blockTerraformMaxDepth[type] = depth;
+
+        maxTerraformDepth = 0;
+        for (byte t : BLOCK_TYPES)
+            maxTerraformDepth = Math.max(maxTerraformDepth, blockTerraformMaxDepth[t]);
+
+        // The patches grown so far are the wrong size now
+        resetPatches();
+    }
+
+    /**
+     * Empties the patch cache, making it big enough for every chunk row that one row's patches can reach, twice over.
+     */
+    private void resetPatches() {
+        int reach = 2 * ((maxTerraformDepth + World.CHUNK_SIZE - 1) / World.CHUNK_SIZE + 1) + 1;
+        patchCache = new AtomicReferenceArray<Patches>(Math.max(16, Integer.highestOneBit(2 * reach - 1) << 1));
+    }
+
+    /**
+     * Sets how many threads terraform() makes rows on. Doesn't change the map it makes.
+     * @param threads The number of threads, or 1 to make every row on the calling thread
+     */
+    public void setThreads(int threads) {
+        if (threads == getThreads())
+            return;
+
+        if (pool != null && pool != ForkJoinPool.commonPool())
+            pool.shutdown();
+
+        pool = threads > 1 ? new ForkJoinPool(threads) : null;
+    }
+
+    /**
+     * Initializes the data for blocks and decor blocks.
+     */
+    private void initInfo() {
+        blockVarietyProb = new double[Tiles.COUNT];
+        blockTerraformMaxDepth = new int[Tiles.COUNT];
+
+        // Add the block types
+        // Coding aesthetics
+        blockVarietyProb[Tiles.STONE] = 1.5;
+        blockTerraformMaxDepth[Tiles.STONE] = 5;
+        blockVarietyProb[Tiles.DIRT] = 1.0;
+        blockTerraformMaxDepth[Tiles.DIRT] = 4;
+        blockVarietyProb[Tiles.ACID] = 0.2;
+        blockTerraformMaxDepth[Tiles.ACID] = 3;
+        blockVarietyProb[Tiles.WATER] = 0.2;
+        blockTerraformMaxDepth[Tiles.WATER] = 3;
+
+        for (byte type : BLOCK_TYPES)
+            maxTerraformDepth = Math.max(maxTerraformDepth, blockTerraformMaxDepth[type]);
+
+        // Decor blocks
+        decorBlockVarietyProb = new double[Decor.COUNT];
+        decorBlockVarietyProb[Decor.STALAGMITE] = 50.0;
+        decorBlockVarietyProb[Decor.STALACTITE] = 50.0;
+        decorBlockVarietyProb[Decor.BAT] = 10.0;
+        decorBlockVarietyProb[Decor.FLOWER] = 40.0;
+        decorBlockVarietyProb[Decor.VINE] = 80.0;
+    }
+
+    /**
+     * Works out the height and blocks of the mysterious lab in every column, left to right like it's drawn.
+     */
+    private void initLab() {
+        SplittableRandom random = new SplittableRandom(hash(seed, LAB, 0, 0));
+        labHeight = new int[mapWidth];
+        labTiles = new byte[mapWidth * MAX_LAB_HEIGHT];
+
+        int curHeight = 10;
+        for (int i = 1; i < mapWidth - 1; i++) {
+            // Roughly 1/3 possibility of changing the height.
+            if (random.nextDouble() * 100 < 33)
+                curHeight = (int) (random.nextDouble() * (MAX_LAB_HEIGHT - MIN_LAB_HEIGHT)) + MIN_LAB_HEIGHT;
+
+            labHeight[i] = curHeight;
+
+            for (int j = 0; j < curHeight; j++) {
+                // Two types of blocks used for the lab
+                byte type = random.nextDouble() * 100 < 75 ? Tiles.LAB_1 : Tiles.LAB_2;
+
+                // Add a striped block in a half-hearted attempt to make it look more artificial.
+                if (j == curHeight - 1)
+                    type = Tiles.LAB_3;
+
+                labTiles[i * MAX_LAB_HEIGHT + j] = type;
+            }
+        }
+    }
+
+    /**
+     * Makes a whole map at once, for maps small enough to keep in memory.
+     * Every chunk row's patches are grown first, then the rows are made from them, both in parallel (see
+     * setThreads()), and the rows are loaded in order once they're all made.
+     * @param world The map to terraform, with every chunk row loaded
+     * @param enemies Where to add the enemies
+     * @param enemyCount The number of enemies to add
+     */
+    public void terraform(World world, Enemies enemies, int enemyCount) {
+        Patches[] patches = new Patches[world.getChunkRows()];
+        ChunkRow[] rows = new ChunkRow[world.getChunkRows()];
+
+        forEachRow(rows.length, cj -> patches[cj] = canvases.get().grow(cj));
+        forEachRow(rows.length, cj -> rows[cj] = canvases.get().generate(cj, sj -> patches[sj]));
+
+        for (int cj = 0; cj < rows.length; cj++)
+            world.load(cj, rows[cj].tiles, rows[cj].decor);
+
+        // Add enemies
+        SplittableRandom random = new SplittableRandom(hash(seed, ENEMY, 0, -1));
+        for (int i = 0; i < enemyCount; i++) {
+            // Enemies spawn in the lower half of the cave
+            int x = (int) (random.nextDouble() * (mapWidth * blockWidth));
+            int y = (int) (random.nextDouble() * (mapHeight * blockWidth) / 2) + (mapHeight * blockWidth) / 2;
+            enemies.add(x, y);
+        }
+    }
+
+    /**
+     * Does something for every chunk row, in parallel unless setThreads() said not to.
+     */
+    private void forEachRow(int count, IntConsumer job) {
+        Rows all = new Rows(job, 0, count);
+
+        if (pool == null)
+            all.compute();
+        else
+            pool.invoke(all);
+    }
+
+    /**
+     * A range of chunk rows for terraform(), split in half until each piece is small.
+     */
+    @SuppressWarnings("serial") // Never serialized
+    private class Rows extends RecursiveAction {
+        private IntConsumer job;
+        private int minJ;
+        private int maxJ;
+
+        public Rows(IntConsumer job, int minJ, int maxJ) {
+            this.job = job;
+            this.minJ = minJ;
+            this.maxJ = maxJ;
+        }
+
+        @Override
+        protected void compute() {
+            if (maxJ - minJ > TERRAFORM_ROWS) {
+                int mid = (minJ + maxJ) / 2;
+                invokeAll(new Rows(job, minJ, mid), new Rows(job, mid, maxJ));
+                return;
+            }
+
+            for (int cj = minJ; cj < maxJ; cj++)
+                job.accept(cj);
+        }
+    }
+
+    /**
+     * Where the actual fun takes place.
+     * Makes one chunk row of the map: floodfill patches, barriers, the lab if it's deep enough, then decorations.
+     * Safe to call from several threads at once.
+     * @param chunkJ The row of the chunk
+     * @return The tiles and decorations of the chunk row
+     */
+    public ChunkRow generateChunkRow(int chunkJ) {
+        return canvases.get().generate(chunkJ, this::patches);
+    }
+
+    /**
+     * Gets the patches that start in a chunk row, from the cache if they've been grown lately.
+     * Two threads might grow the same row at once, but they grow the same patches, so either can be kept.
+     */
+    private Patches patches(int chunkJ) {
+        AtomicReferenceArray<Patches> cache = patchCache;
+        int slot = chunkJ & (cache.length() - 1);
+
+        Patches patches = cache.get(slot);
+        if (patches == null || patches.chunkJ != chunkJ) {
+            patches = canvases.get().grow(chunkJ);
+            cache.set(slot, patches);
+        }
+        return patches;
+    }
+
+    /**
+     * Adds the enemies that live in a chunk row, at the same places every time the row is made.
+     * @param chunkJ The row of the chunk
+     * @param xs Where to add the x-coordinates of the enemies
+     * @param ys Where to add the y-coordinates of the enemies
+     */
+    public void spawnEnemies(int chunkJ, IntList xs, IntList ys) {
+        SplittableRandom random = chunkRandom(ENEMY, 0, chunkJ);
+
+        for (int j = chunkJ * World.CHUNK_SIZE; j < Math.min((chunkJ + 1) * World.CHUNK_SIZE, mapHeight); j++) {
+            // Every row draws the same numbers, so a row's enemies don't depend on the rows above it
+            double chance = random.nextDouble();
+            double x = random.nextDouble();
+            double y = random.nextDouble();
+
+            // Enemies spawn in the lower half of the cave
+            if (j < mapHeight / 2 || chance >= ENEMIES_PER_ROW)
+                continue;
+
+            xs.add((int) (x * (mapWidth * blockWidth)));
+            ys.add(j * blockWidth + (int) (y * blockWidth));
+        }
+    }
+
+    /**
+     * Makes the random number generator for one thing in one chunk.
+     */
+    private SplittableRandom chunkRandom(long purpose, int chunkI, int chunkJ) {
+        return new SplittableRandom(hash(seed, purpose, chunkI, chunkJ));
+    }
+
+    /**
+     * Every tile covered by the floodfill patches that start in one chunk row, as a bitset per tile type over the rows
+     * they can reach. Never changes once it's grown, so any number of threads can read it.
+     */
+    private class Patches {
+        private final int chunkJ;
+
+        // The first map row of each type's bitset, and its rows, [type][row - base][i / 64], null if nothing's there
+        private final int[] base;
+        private final long[][][] rows;
+
+        public Patches(int chunkJ, int[] base, long[][][] rows) {
+            this.chunkJ = chunkJ;
+            this.base = base;
+            this.rows = rows;
+        }
+
+        /**
+         * Paints the tiles of one type that are on a canvas.
+         * @param t The position of the type in BLOCK_TYPES
+         * @param tiles The canvas, as (j - top) * mapWidth + i
+         * @param top The first map row on the canvas
+         */
+        public void paint(int t, byte[] tiles, int top) {
+            byte type = BLOCK_TYPES[t];
+            long[][] bits = rows[t];
+            int from = Math.max(top, base[t]);
+            int to = Math.min(top + CANVAS_ROWS, base[t] + bits.length);
+
+            for (int j = from; j < to; j++) {
+                long[] row = bits[j - base[t]];
+                if (row == null)
+                    continue;
+
+                for (int w = 0; w < row.length; w++) {
+                    for (long b = row[w]; b != 0; b &= b - 1)
+                        tiles[(j - top) * mapWidth + (w << 6) + Long.numberOfTrailingZeros(b)] = type;
+                }
+            }
+        }
+    }
+
+    /**
+     * A chunk row being made, plus one row above and below, and the floodfill's scratch space.
+     * Each thread has its own.
+     */
+    private class Canvas {
+        // Tiles, as (j - top) * mapWidth + i
+        private byte[] tiles;
+        private int top;
+
+        // The floodfill's queue: positions relative to where the fill started, and how many steps each is from there
+        private IntList fillQueue;
+        private IntList fillDepth;
+
+        // Positions that are in the queue already, as a bitset over the square a fill can reach
+        private long[] queued;
+
+        // The bitset a fill is painting into, and the map row its first row is
+        private long[][] fillRows;
+        private int fillBase;
+
+        // Decor IDs of the chunk being decorated, laid out like a chunk's tile IDs, before they're packed
+        private byte[] decor;
+
+        public Canvas() {
+            this.tiles = new byte[CANVAS_ROWS * mapWidth];
+            this.decor = new byte[World.CHUNK_SIZE * World.CHUNK_SIZE];
+            this.fillQueue = new IntList();
+            this.fillDepth = new IntList();
+            this.queued = new long[0];
+        }
+
+        /**
+         * Makes one chunk row of the map.
+         * @param chunkJ The row of the chunk
+         * @param patches Gets the patches that start in a chunk row
+         */
+        public ChunkRow generate(int chunkJ, IntFunction<Patches> patches) {
+            top = chunkJ * World.CHUNK_SIZE - 1;
+            Arrays.fill(tiles, Tiles.CAVE);
+
+            // Make several chunks of stone and dirt. Any patch that started close enough could reach this row.
+            int lastRow = (mapHeight - 1) / World.CHUNK_SIZE;
+            for (int t = 0; t < BLOCK_TYPES.length; t++) {
+                int maxDepth = blockTerraformMaxDepth[BLOCK_TYPES[t]];
+                int minJ = Math.max(0, Math.floorDiv(top - maxDepth, World.CHUNK_SIZE));
+                int maxJ = Math.min(lastRow, (top + CANVAS_ROWS - 1 + maxDepth) / World.CHUNK_SIZE);
+
+                for (int cj = minJ; cj <= maxJ; cj++)
+                    patches.apply(cj).paint(t, tiles, top);
+            }
+
+            // Add barriers
+            for (int j = top; j < top + CANVAS_ROWS; j++) {
+                if (j < 0 || j >= mapHeight)
+                    continue;
+
+                if (j == mapHeight - 1) {
+                    for (int i = 0; i < mapWidth; i++)
+                        paint(i, j, Tiles.BARRIER);
+                }
+                paint(0, j, Tiles.BARRIER);
+                paint(mapWidth - 1, j, Tiles.BARRIER);
+            }
+
+            // The mysterious laboratory at the bottom
+            if (top + CANVAS_ROWS > mapHeight - 2 - MAX_LAB_HEIGHT - 4)
+                drawLab();
+
+            // Keep the middle of the canvas, and decorate it a chunk at a time
+            byte[][] chunkTiles = new byte[chunkColumns][World.CHUNK_SIZE * World.CHUNK_SIZE];
+            DecorChunk[] chunkDecor = new DecorChunk[chunkColumns];
+
+            for (int ci = 0; ci < chunkColumns; ci++) {
+                SplittableRandom random = chunkRandom(DECOR, ci, chunkJ);
+                Arrays.fill(decor, Decor.NONE);
+
+                for (int dj = 0; dj < World.CHUNK_SIZE; dj++) {
+                    int j = top + 1 + dj;
+                    if (j >= mapHeight)
+                        break;
+
+                    for (int i = ci * World.CHUNK_SIZE; i < Math.min((ci + 1) * World.CHUNK_SIZE, mapWidth); i++) {
+                        int local = (dj << 4) | (i & (World.CHUNK_SIZE - 1));
+                        chunkTiles[ci][local] = tiles[(dj + 1) * mapWidth + i];
+                        decor[local] = pickDecor(i, j, random);
+                    }
+                }
+
+                chunkDecor[ci] = DecorChunk.of(decor);
+            }
+
+            return new ChunkRow(chunkTiles, chunkDecor);
+        }
+
+        /**
+         * Grows every patch that starts in a chunk row.
+         * @param chunkJ The row of the chunk
+         * @return The tiles they cover
+         */
+        public Patches grow(int chunkJ) {
+            // Room for the biggest fill, which changes if the depths do
+            int side = 2 * maxTerraformDepth + 1;
+            if (queued.length != (side * side + 63) >> 6)
+                queued = new long[(side * side + 63) >> 6];
+
+            int[] base = new int[BLOCK_TYPES.length];
+            long[][][] rows = new long[BLOCK_TYPES.length][][];
+
+            for (int t = 0; t < BLOCK_TYPES.length; t++) {
+                byte type = BLOCK_TYPES[t];
+                int maxDepth = blockTerraformMaxDepth[type];
+
+                // A patch can reach maxDepth rows above or below the chunk row
+                fillBase = chunkJ * World.CHUNK_SIZE - maxDepth;
+                fillRows = new long[World.CHUNK_SIZE + 2 * maxDepth][];
+
+                for (int ci = 0; ci < chunkColumns; ci++)
+                    fillChunk(ci, chunkJ, type);
+
+                base[t] = fillBase;
+                rows[t] = fillRows;
+            }
+
+            fillRows = null;
+            return new Patches(chunkJ, base, rows);
+        }
+
+        /**
+         * Finds where the patches of a tile type start in a chunk, and grows them, except in the lab's rows.
+         */
+        private void fillChunk(int chunkI, int chunkJ, byte type) {
+            SplittableRandom random = chunkRandom(START * Tiles.COUNT + type, chunkI, chunkJ);
+            double prob = blockVarietyProb[type];
+
+            for (int j = chunkJ * World.CHUNK_SIZE; j < Math.min((chunkJ + 1) * World.CHUNK_SIZE, mapHeight); j++) {
+                for (int i = chunkI * World.CHUNK_SIZE; i < Math.min((chunkI + 1) * World.CHUNK_SIZE, mapWidth); i++) {
+                    if (random.nextDouble() * 100 >= prob)
+                        continue;
+
+                    long fillSeed = random.nextLong();
+                    if (j < mapHeight - MAX_LAB_HEIGHT)
+                        floodfill(i, j, blockTerraformMaxDepth[type], fillSeed);
+                }
+            }
+        }
+
+        /**
+         * Floodfill to create a unique map every time.
+         * Spreads out from a position one step at a time, and each position it reaches has a 10% chance of being
+         * skipped. A skipped position can still be reached again from another side.
+         * The fill only depends on its seed. The tiles it reaches are set in fillRows.
+         * @param row The column of the starting position
+         * @param column The row of the starting position
+         * @param maxDepth Maximum number of steps from the starting position
+         * @param fillSeed The seed for the 10% chances
+         */
+        private void floodfill(int row, int column, int maxDepth, long fillSeed) {
+            SplittableRandom random = new SplittableRandom(fillSeed);
+            int side = 2 * maxTerraformDepth + 1;
+
+            fillQueue.clear();
+            fillDepth.clear();
+            enqueue(row, column, 0, 0, 0);
+
+            for (int k = 0; k < fillQueue.size(); k++) {
+                int offset = fillQueue.get(k);
+                int depth = fillDepth.get(k);
+                int di = offset % side - maxTerraformDepth;
+                int dj = offset / side - maxTerraformDepth;
+
+                // If the 10% chance is met, leave this one, but let a neighbour try again.
+                if (random.nextDouble() < 0.1) {
+                    queued[offset >> 6] &= ~(1L << offset);
+                    continue;
+                }
+
+                long[] bits = fillRows[column + dj - fillBase];
+                if (bits == null) {
+                    bits = new long[(mapWidth + 63) >> 6];
+                    fillRows[column + dj - fillBase] = bits;
+                }
+                bits[(row + di) >> 6] |= 1L << (row + di);
+
+                // Spread, unless we've gone too far
+                if (depth < maxDepth) {
+                    enqueue(row, column, di - 1, dj, depth + 1);
+                    enqueue(row, column, di + 1, dj, depth + 1);
+                    enqueue(row, column, di, dj - 1, depth + 1);
+                    enqueue(row, column, di, dj + 1, depth + 1);
+                }
+            }
+
+            // Ready for the next fill
+            for (int k = 0; k < fillQueue.size(); k++)
+                queued[fillQueue.get(k) >> 6] = 0;
+        }
+
+        /**
+         * Adds a position to the floodfill's queue, if it isn't on the edge of the map or in the queue already.
+         */
+        private void enqueue(int row, int column, int di, int dj, int depth) {
+            // Avoid the edges
+            if (column + dj < 1 || column + dj >= mapHeight - 1 || row + di < 1 || row + di >= mapWidth - 1)
+                return;
+
+            int side = 2 * maxTerraformDepth + 1;
+            int offset = (dj + maxTerraformDepth) * side + di + maxTerraformDepth;
+            if ((queued[offset >> 6] & (1L << offset)) != 0)
+                return;
+
+            queued[offset >> 6] |= 1L << offset;
+            fillQueue.add(offset);
+            fillDepth.add(depth);
+        }
+
+        /**
+         * Sets a tile on the canvas, if it's on it.
+         */
+        private void paint(int i, int j, byte type) {
+            if (j >= top && j < top + CANVAS_ROWS)
+                tiles[(j - top) * mapWidth + i] = type;
+        }
+
+        /**
+         * Gets a tile from the canvas, or barrier for anything off the map.
+         */
+        private byte tileAt(int i, int j) {
+            if (j < 0 || j >= mapHeight)
+                return Tiles.BARRIER;
+            return tiles[(j - top) * mapWidth + i];
+        }
+
+        /**
+         * Picks the decor of a certain block. Each type gets a chance in turn, and the first one to get it takes the
+         * position, even if it can't grow there.
+         * @param row The column of the position
+         * @param col The row of the position
+         * @param random The chunk's random numbers for decorations
+         * @return The decor ID, or Decor.NONE
+         */
+        private byte pickDecor(int row, int col, SplittableRandom random) {
+            // A decor block can only be placed in position not occupied by any other block.
+            if (row < 1 || row >= mapWidth - MAX_LAB_HEIGHT || col < 1 || col >= mapHeight - 1
+                    || tileAt(row, col) != Tiles.CAVE)
+                return Decor.NONE;
+
+            for (byte type : DECOR_TYPES) {
+                if (random.nextDouble() * 100 >= decorBlockVarietyProb[type])
+                    continue;
+
+                switch (type) {
+                    // Most of the decor are things that grow on the underside of blocks.
+                    case Decor.STALACTITE:
+                        return tileAt(row, col - 1) == Tiles.STONE ? type : Decor.NONE;
+                    case Decor.BAT:
+                    case Decor.VINE:
+                        return Tiles.SOLID[tileAt(row, col - 1)] ? type : Decor.NONE;
+                    case Decor.FLOWER:
+                        return tileAt(row, col - 1) == Tiles.DIRT ? type : Decor.NONE;
+
+                    // Only the stalagmite grows on the top of blocks (I think?)
+                    case Decor.STALAGMITE:
+                        return tileAt(row, col + 1) == Tiles.STONE ? type : Decor.NONE;
+                }
+            }
+
+            return Decor.NONE;
+        }
+
+        /**
+         * Draws the part of the mysterious lab which hopefully looks like a lab that's on the canvas.
+         */
+        private void drawLab() {
+            for (int i = 1; i < mapWidth - 1; i++) {
+                int curHeight = labHeight[i];
+
+                for (int j = 0; j < curHeight; j++)
+                    paint(i, mapHeight - 2 - j, labTiles[i * MAX_LAB_HEIGHT + j]);
+
+                // 4 spaces of padding.
+                for (int j = 0; j < 4; j++)
+                    paint(i, mapHeight - 2 - curHeight - j, Tiles.CAVE);
+            }
+        }
+    }
+
+    /**
+     * Mixes some numbers into a random-looking long (the finalizer from SplitMix64, applied after each one),
+     * for seeding the random number generators.
+     */
+    private static long hash(long a, long b, long c, long d) {
+        long h = mix(a + 0x9e3779b97f4a7c15L);
+        h = mix(h ^ b);
+        h = mix(h ^ c);
+        return mix(h ^ d);
+    }
+
+    private static long mix(long h) {
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+}
@@ -0,0 +1,272 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps a window of chunk rows around the player loaded, so the map can be as deep as you like.
+ * Rows below the player are made by the WorldGenerator on background threads a little before they're needed, several
+ * at once if there are cores to spare.
+ * Chunks that changed while they were loaded are written to a RegionStore when they leave the window (or when the game
+ * is saved), and read back instead of being made again, so holes dug in them are still there when the player comes
+ * back, even in a later game with the same seed. Chunks that never changed aren't saved, since the seed makes them again.
+ * The enemies in a row spawn when it's loaded and disappear when it's unloaded.
+ *
+ * The window only depends on the player's row, and the generator only depends on the seed, so the same inputs
+ * always give the same game no matter how fast the background threads are or which one makes which row.
+ *
+ * @author Gene Yang
+ * @version May 24, 2023
+ */
+public class WorldStreamer {
+    // Chunk rows to keep loaded above and below the one the player is in
+    public static final int ROWS_ABOVE = 2;
+    public static final int ROWS_BELOW = 3;
+
+    // Number of slots the World needs for the window
+    public static final int WINDOW_ROWS = ROWS_ABOVE + 1 + ROWS_BELOW;
+
+    // Chunk rows past the bottom of the window to start making ahead of time
+    private final int PREFETCH_ROWS = 2;
+
+    // Background threads making rows. The game loop and the Swing thread keep a core each.
+    private static final int GENERATOR_THREADS =
+            Math.max(1, Math.min(WINDOW_ROWS, Runtime.getRuntime().availableProcessors() - 2));
+
+    private World world;
+    private WorldGenerator generator;
+    private RegionStore store;
+    private int blockWidth;
+    private int chunkColumns;
+
+    // The version of every loaded chunk when it was loaded or last saved, by [slot * chunk columns + chunk column]
+    private int[] savedVersions;
+
+    // The background threads, and the rows they're making or have made (chunk row -> row)
+    private ExecutorService worker;
+    private HashMap<Integer, Future<WorldGenerator.ChunkRow>> pending;
+
+    // Scratch lists for spawning enemies
+    private IntList spawnX;
+    private IntList spawnY;
+
+    // Number of rows made (on the background threads) and loaded so far
+    private AtomicInteger generatedCount;
+    private int loadedCount;
+
+    /**
+     * Constructor
+     * @param world The map to stream into, with room for at least WINDOW_ROWS chunk rows
+     * @param generator Makes the rows on the background threads, and spawns their enemies on the game loop's thread, so
+     *                  it's shared between them from now on and has to stay safe to use from several threads at once.
+     * @param store Where changed chunks are saved
+     */
+    public WorldStreamer(World world, WorldGenerator generator, RegionStore store) {
+        this.world = world;
+        this.generator = generator;
+        this.store = store;
+        this.blockWidth = world.getBlockWidth();
+        this.chunkColumns = world.getChunkColumns();
+        this.savedVersions = new int[world.getSlots() * chunkColumns];
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.worker = Executors.newFixedThreadPool(GENERATOR_THREADS, r -> {
+            Thread t = new Thread(r, "world-generator-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.pending = new HashMap<Integer, Future<WorldGenerator.ChunkRow>>();
+        this.generatedCount = new AtomicInteger();
+
+        this.spawnX = new IntList();
+        this.spawnY = new IntList();
+    }
+
+    /** Getters **/
+    public int getGeneratedCount() { return this.generatedCount.get(); }
+    public int getLoadedCount() { return this.loadedCount; }
+    public RegionStore getStore() { return this.store; }
+
+    /**
+     * Moves the window to wherever the player is, loading and unloading rows as needed.
+     * Waits for the background threads if a row isn't ready yet.
+     * @param playerRow The row the player is in (y, in blocks)
+     * @param enemyGrid The enemies, to spawn and remove them along with their rows. Removing one moves another to its
+     *                  index, so lists of enemy indices kept from before are out of date.
+     */
+    public void update(int playerRow, EnemyGrid enemyGrid) {
+        int center = Math.floorDiv(playerRow, World.CHUNK_SIZE);
+        int minRow = Math.max(0, center - ROWS_ABOVE);
+        int maxRow = Math.min(world.getChunkRows() - 1, Math.max(minRow, center + ROWS_BELOW));
+
+        boolean unloaded = false;
+
+        // Unload first, since the new rows might need the same slots
+        int top = world.getTopRow() / World.CHUNK_SIZE;
+        int bottom = (world.getBottomRow() + World.CHUNK_SIZE - 1) / World.CHUNK_SIZE;
+        for (int cj = top; cj < bottom; cj++) {
+            if (world.isLoaded(cj) && (cj < minRow || cj > maxRow)) {
+                save(cj);
+                world.unload(cj);
+                unloaded = true;
+            }
+        }
+
+        if (unloaded)
+            removeEnemiesOutside(enemyGrid);
+
+        for (int cj = minRow; cj <= maxRow; cj++) {
+            if (world.isLoaded(cj))
+                continue;
+
+            load(cj);
+
+            spawnX.clear();
+            spawnY.clear();
+            generator.spawnEnemies(cj, spawnX, spawnY);
+            for (int k = 0; k < spawnX.size() && enemyGrid.size() < enemyGrid.getCapacity(); k++)
+                enemyGrid.add(spawnX.get(k), spawnY.get(k));
+        }
+
+        // Start on the rows the player is heading towards, and forget about ones far away.
+        // A row that hasn't been started yet is taken off the background threads' hands too.
+        for (int cj = maxRow + 1; cj <= Math.min(world.getChunkRows() - 1, maxRow + PREFETCH_ROWS); cj++)
+            request(cj);
+
+        Iterator<Map.Entry<Integer, Future<WorldGenerator.ChunkRow>>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, Future<WorldGenerator.ChunkRow>> entry = it.next();
+            int cj = entry.getKey();
+            if (cj < minRow - PREFETCH_ROWS || cj > maxRow + PREFETCH_ROWS) {
+                entry.getValue().cancel(false);
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Saves every loaded chunk that changed since it was loaded or last saved, and writes the saves to the disk.
+     */
+    public void saveAll() {
+        int top = world.getTopRow() / World.CHUNK_SIZE;
+        int bottom = (world.getBottomRow() + World.CHUNK_SIZE - 1) / World.CHUNK_SIZE;
+        for (int cj = top; cj < bottom; cj++) {
+            if (world.isLoaded(cj))
+                save(cj);
+        }
+
+        store.flush();
+    }
+
+    /**
+     * Saves the chunks in a loaded row that changed since it was loaded or last saved.
+     */
+    private void save(int chunkJ) {
+        int slot = chunkJ & (world.getSlots() - 1);
+
+        for (int ci = 0; ci < chunkColumns; ci++) {
+            int version = world.getChunkVersion(ci, chunkJ);
+            if (version != savedVersions[slot * chunkColumns + ci]) {
+                store.write(world, ci, chunkJ);
+                savedVersions[slot * chunkColumns + ci] = version;
+            }
+        }
+    }
+
+    /**
+     * Loads a chunk row, from the store if every chunk in it was saved, or else from the generator with the saved chunks
+     * put over the top.
+     */
+    private void load(int chunkJ) {
+        byte[][] tiles;
+        DecorChunk[] decor;
+
+        if (isSaved(chunkJ)) {
+            tiles = new byte[chunkColumns][World.CHUNK_SIZE * World.CHUNK_SIZE];
+            decor = new DecorChunk[chunkColumns];
+            Arrays.fill(decor, DecorChunk.EMPTY);
+        } else {
+            WorldGenerator.ChunkRow row;
+            try {
+                row = request(chunkJ).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while making chunk row " + chunkJ, e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Couldn't make chunk row " + chunkJ, e.getCause());
+            }
+            pending.remove(chunkJ);
+
+            tiles = row.tiles;
+            decor = row.decor;
+        }
+
+        for (int ci = 0; ci < chunkColumns; ci++) {
+            DecorChunk saved = store.read(ci, chunkJ, tiles[ci]);
+            if (saved != null)
+                decor[ci] = saved;
+        }
+
+        world.load(chunkJ, tiles, decor);
+        loadedCount++;
+
+        // Nothing in the row has changed yet
+        int slot = chunkJ & (world.getSlots() - 1);
+        for (int ci = 0; ci < chunkColumns; ci++)
+            savedVersions[slot * chunkColumns + ci] = world.getChunkVersion(ci, chunkJ);
+    }
+
+    /**
+     * Checks if every chunk in a row was saved, so there's no need to make it.
+     */
+    private boolean isSaved(int chunkJ) {
+        for (int ci = 0; ci < chunkColumns; ci++) {
+            if (!store.has(ci, chunkJ))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the background threads' work on a chunk row, starting it if it hasn't been started and the row isn't saved.
+     */
+    private Future<WorldGenerator.ChunkRow> request(int chunkJ) {
+        Future<WorldGenerator.ChunkRow> future = pending.get(chunkJ);
+        if (future == null && !world.isLoaded(chunkJ) && !isSaved(chunkJ)) {
+            future = worker.submit(() -> {
+                WorldGenerator.ChunkRow row = generator.generateChunkRow(chunkJ);
+                generatedCount.incrementAndGet();
+                return row;
+            });
+            pending.put(chunkJ, future);
+        }
+        return future;
+    }
+
+    /**
+     * Removes every enemy that isn't in a loaded row.
+     */
+    private void removeEnemiesOutside(EnemyGrid enemyGrid) {
+        int minY = world.getTopRow() * blockWidth;
+        int maxY = world.getBottomRow() * blockWidth;
+        int[] ys = enemyGrid.getEnemies().y;
+
+        // Backwards, since removing an enemy moves the last one into its place
+        for (int k = enemyGrid.size() - 1; k >= 0; k--) {
+            if (ys[k] < minY || ys[k] >= maxY)
+                enemyGrid.remove(k);
+        }
+    }
+
+    /**
+     * Stops the background threads.
+     */
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+}